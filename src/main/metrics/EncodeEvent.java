@@ -0,0 +1,49 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Represents a Flight Recorder event for one encode or decode call made through the app.
+ * Enabled, disabled and thresholded by name ({@value #NAME}) in the usual JFR settings; when disabled, creating and
+ * committing the event costs next to nothing.
+ */
+@Name(EncodeEvent.NAME)
+@Label("Encoder Operation")
+@Category("Xypher")
+@Description("An encode or decode call on a registry encoder")
+@StackTrace(false)
+public class EncodeEvent extends Event {
+    public static final String NAME = "xypher.Encode";
+
+    @Label("Encoder")
+    String encoderName;
+
+    @Label("Direction")
+    String direction;
+
+    @Label("Input Length")
+    int inputLength;
+
+    /**
+     * MODIFIES: this
+     * EFFECTS: Fills in the event fields and commits it, if the event is enabled and over its threshold
+     *
+     * @param encoderName The name of the encoder
+     * @param encoding true for encode, false for decode
+     * @param inputLength The number of input characters
+     */
+    public void commit(String encoderName, boolean encoding, int inputLength) {
+        end();
+        if (shouldCommit()) {
+            this.encoderName = encoderName;
+            this.direction = encoding ? "encode" : "decode";
+            this.inputLength = inputLength;
+            commit();
+        }
+    }
+}
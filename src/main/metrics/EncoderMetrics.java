@@ -0,0 +1,93 @@
+package metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Represents the call count, throughput and latency of one encoder (or sequence stage) in one direction.
+ * Recording only touches striped {@link LongAdder}s, so it is cheap and safe from any thread.
+ */
+public class EncoderMetrics implements EncoderMetricsMBean {
+    private final String name;
+    private final String direction;
+    private final LongAdder calls;
+    private final LongAdder chars;
+    private final LongAdder totalNanos;
+    private final LatencyHistogram latency;
+
+    /**
+     * MODIFIES: this
+     * EFFECTS: Creates empty metrics
+     *
+     * @param name The name of the encoder being measured
+     * @param direction "encode" or "decode"
+     */
+    public EncoderMetrics(String name, String direction) {
+        this.name = name;
+        this.direction = direction;
+        calls = new LongAdder();
+        chars = new LongAdder();
+        totalNanos = new LongAdder();
+        latency = new LatencyHistogram();
+    }
+
+    /**
+     * MODIFIES: this
+     * EFFECTS: Records one call
+     *
+     * @param length The number of input characters
+     * @param nanos The duration of the call
+     */
+    public void record(int length, long nanos) {
+        calls.increment();
+        chars.add(length);
+        totalNanos.add(nanos);
+        latency.record(nanos);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String getDirection() {
+        return direction;
+    }
+
+    @Override
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    @Override
+    public long getChars() {
+        return chars.sum();
+    }
+
+    @Override
+    public long getTotalNanos() {
+        return totalNanos.sum();
+    }
+
+    @Override
+    public double getCharsPerSecond() {
+        long nanos = totalNanos.sum();
+        return nanos == 0 ? 0 : chars.sum() * (double) TimeUnit.SECONDS.toNanos(1) / nanos;
+    }
+
+    @Override
+    public long getP50Nanos() {
+        return latency.getPercentile(0.5);
+    }
+
+    @Override
+    public long getP99Nanos() {
+        return latency.getPercentile(0.99);
+    }
+
+    @Override
+    public long getP999Nanos() {
+        return latency.getPercentile(0.999);
+    }
+}
@@ -0,0 +1,51 @@
+package metrics;
+
+/**
+ * Represents the JMX view of an {@link EncoderMetrics}
+ */
+public interface EncoderMetricsMBean {
+    /**
+     * @return The name of the encoder, or of the sequence stage, being measured
+     */
+    String getName();
+
+    /**
+     * @return "encode" or "decode"
+     */
+    String getDirection();
+
+    /**
+     * @return The number of calls recorded
+     */
+    long getCalls();
+
+    /**
+     * @return The total number of input characters processed
+     */
+    long getChars();
+
+    /**
+     * @return The total time spent in recorded calls, in nanoseconds
+     */
+    long getTotalNanos();
+
+    /**
+     * @return Characters processed per second of time spent in recorded calls
+     */
+    double getCharsPerSecond();
+
+    /**
+     * @return The median call latency, in nanoseconds
+     */
+    long getP50Nanos();
+
+    /**
+     * @return The 99th percentile call latency, in nanoseconds
+     */
+    long getP99Nanos();
+
+    /**
+     * @return The 99.9th percentile call latency, in nanoseconds
+     */
+    long getP999Nanos();
+}
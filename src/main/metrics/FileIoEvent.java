@@ -0,0 +1,48 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Represents a Flight Recorder event for one encoder file load or save.
+ * Enabled, disabled and thresholded by name ({@value #NAME}) in the usual JFR settings.
+ */
+@Name(FileIoEvent.NAME)
+@Label("Encoder File I/O")
+@Category("Xypher")
+@Description("An encoder file read or written by the file handler")
+public class FileIoEvent extends Event {
+    public static final String NAME = "xypher.FileIO";
+
+    @Label("Path")
+    String path;
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Bytes")
+    @DataAmount
+    long bytes;
+
+    /**
+     * MODIFIES: this
+     * EFFECTS: Fills in the event fields and commits it, if the event is enabled and over its threshold
+     *
+     * @param path The path of the file
+     * @param operation "load" or "save"
+     * @param bytes The bytes read or written; for loads, the characters read, which match bytes for Latin-1 data
+     */
+    public void commit(String path, String operation, long bytes) {
+        end();
+        if (shouldCommit()) {
+            this.path = path;
+            this.operation = operation;
+            this.bytes = bytes;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Represents a log-linear histogram of latencies, in nanoseconds.
+ *
+ * Each power of two is split into {@value #SUB_BUCKETS} equal buckets, so any recorded value is reported within
+ * 12.5% of itself while the whole range of a long fits in a few hundred buckets. Every bucket is a striped
+ * {@link LongAdder}, so concurrent recorders rarely contend on the same cell.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final LongAdder[] buckets;
+
+    /**
+     * MODIFIES: this
+     * EFFECTS: Creates an empty histogram
+     */
+    public LatencyHistogram() {
+        buckets = new LongAdder[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * MODIFIES: this
+     * EFFECTS: Records one value
+     *
+     * @param nanos The value to record, negative values are recorded as 0
+     */
+    public void record(long nanos) {
+        buckets[indexOf(nanos)].increment();
+    }
+
+    /**
+     * @return The number of recorded values
+     */
+    public long getCount() {
+        long count = 0;
+        for (LongAdder bucket : buckets) {
+            count += bucket.sum();
+        }
+        return count;
+    }
+
+    /**
+     * REQUIRES: 0 < fraction <= 1
+     * EFFECTS: Returns an upper bound on the value at the given fraction of recorded values
+     *
+     * @param fraction The percentile as a fraction, eg 0.99
+     * @return The upper bound of the bucket holding that percentile, or 0 if nothing is recorded
+     */
+    public long getPercentile(double fraction) {
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets[i].sum();
+            total += counts[i];
+        }
+        long rank = (long) Math.ceil(fraction * total);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank && seen > 0) {
+                return upperBound(i);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * EFFECTS: Returns the index of the bucket holding value
+     */
+    static int indexOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return value < 0 ? 0 : (int) value;
+        }
+        int shift = Long.SIZE - 1 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) - SUB_BUCKETS;
+        return (shift + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * EFFECTS: Returns the largest value held by the bucket at index
+     */
+    static long upperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long lower = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+        return lower + (1L << shift) - 1;
+    }
+}
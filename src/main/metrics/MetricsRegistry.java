@@ -0,0 +1,175 @@
+package metrics;
+
+import model.CipherSequence;
+import model.ciphers.Cipher;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Represents the single instance registry of {@link EncoderMetrics}, keyed by encoder (or sequence stage) and
+ * direction. Each metrics object is registered as a JMX MBean under the {@value #JMX_DOMAIN} domain when it is
+ * first used, and unregistered when its encoder is removed.
+ */
+public class MetricsRegistry implements CipherSequence.StageObserver {
+    public static final String JMX_DOMAIN = "xypher";
+    private static final String ENCODER_TYPE = "Encoder";
+    private static final String STAGE_TYPE = "Stage";
+
+    /**
+     * Singleton instance
+     */
+    private static MetricsRegistry singleton;
+    /**
+     * Encode and decode metrics of each encoder, keyed by name
+     */
+    private final ConcurrentMap<String, EncoderMetrics[]> encoderMetrics;
+    /**
+     * Encode and decode metrics of each sequence stage, keyed by sequence, index and cipher
+     */
+    private final ConcurrentMap<String, EncoderMetrics[]> stageMetrics;
+
+    /**
+     * MODIFIES: this
+     * EFFECTS: Initializes the metrics maps
+     */
+    private MetricsRegistry() {
+        encoderMetrics = new ConcurrentHashMap<>();
+        stageMetrics = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * MODIFIES: this
+     * EFFECTS: Returns the MetricsRegistry, or a new one if it does not already exist
+     * @return The singleton instance of this
+     */
+    public static synchronized MetricsRegistry getInstance() {
+        if (singleton != null) {
+            return singleton;
+        }
+
+        singleton = new MetricsRegistry();
+        return singleton;
+    }
+
+    /**
+     * EFFECTS: Returns the metrics of a registry encoder, creating and registering them on first use
+     * @param name The name of the encoder
+     * @param encoding true for encode calls, false for decode calls
+     * @return The metrics
+     */
+    public EncoderMetrics forEncoder(String name, boolean encoding) {
+        return metricsFor(encoderMetrics, ENCODER_TYPE, name, encoding);
+    }
+
+    /**
+     * MODIFIES: this
+     * EFFECTS: Drops the metrics of an encoder in both directions, and of its stages if it is a sequence, and
+     *          unregisters their MBeans, so an encoder created later under the same name starts afresh
+     * @param name The name of the encoder
+     */
+    public void remove(String name) {
+        unregister(ENCODER_TYPE, encoderMetrics.remove(name));
+        String stagePrefix = name + "[";
+        for (String key : stageMetrics.keySet()) {
+            if (key.startsWith(stagePrefix)) {
+                unregister(STAGE_TYPE, stageMetrics.remove(key));
+            }
+        }
+    }
+
+    /**
+     * EFFECTS: Records a sequence stage against the metrics of that stage
+     */
+    @Override
+    public void stageCompleted(CipherSequence sequence, int index, Cipher cipher, boolean encoding, int length,
+                               long nanos) {
+        metricsFor(stageMetrics, STAGE_TYPE, sequence.toString() + "[" + index + "] " + cipher.toString(), encoding)
+                .record(length, nanos);
+    }
+
+    /**
+     * EFFECTS: Returns a table of every metric, sorted by type and name, with latencies in microseconds
+     * @return The formatted report
+     */
+    public String report() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-40s %-7s %10s %14s %10s %10s %10s %14s%n",
+                "Name", "Dir", "Calls", "Chars", "p50(us)", "p99(us)", "p999(us)", "Chars/s"));
+        appendRows(sb, encoderMetrics);
+        appendRows(sb, stageMetrics);
+        return sb.toString();
+    }
+
+    /**
+     * MODIFIES: sb
+     * EFFECTS: Appends a row for every direction that has recorded calls, sorted by name
+     */
+    private static void appendRows(StringBuilder sb, Map<String, EncoderMetrics[]> family) {
+        for (EncoderMetrics[] pair : new TreeMap<>(family).values()) {
+            for (EncoderMetrics m : pair) {
+                if (m.getCalls() > 0) {
+                    sb.append(String.format("%-40s %-7s %10d %14d %10.1f %10.1f %10.1f %14.0f%n",
+                            m.getName(), m.getDirection(), m.getCalls(), m.getChars(), m.getP50Nanos() / 1000.0,
+                            m.getP99Nanos() / 1000.0, m.getP999Nanos() / 1000.0, m.getCharsPerSecond()));
+                }
+            }
+        }
+    }
+
+    /**
+     * EFFECTS: Returns the metrics for a key, creating and registering them with JMX on first use
+     */
+    private static EncoderMetrics metricsFor(ConcurrentMap<String, EncoderMetrics[]> family, String type,
+                                             String name, boolean encoding) {
+        EncoderMetrics[] pair = family.get(name);
+        if (pair == null) {
+            pair = family.computeIfAbsent(name, k -> new EncoderMetrics[] {
+                register(type, new EncoderMetrics(name, "encode")),
+                register(type, new EncoderMetrics(name, "decode"))
+            });
+        }
+        return pair[encoding ? 0 : 1];
+    }
+
+    /**
+     * EFFECTS: Registers metrics as an MBean, returning them whether or not registration succeeded
+     */
+    private static EncoderMetrics register(String type, EncoderMetrics encoderMetrics) {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(encoderMetrics, objectName(type, encoderMetrics));
+        } catch (JMException e) {
+            System.out.println("Error registering metrics MBean: " + e.getMessage());
+        }
+        return encoderMetrics;
+    }
+
+    /**
+     * EFFECTS: Unregisters the MBeans of both directions in pair, if there is a pair
+     */
+    private static void unregister(String type, EncoderMetrics[] pair) {
+        if (pair == null) {
+            return;
+        }
+        for (EncoderMetrics m : pair) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName(type, m));
+            } catch (JMException e) {
+                System.out.println("Error unregistering metrics MBean: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * EFFECTS: Returns the JMX name metrics are registered under
+     */
+    private static ObjectName objectName(String type, EncoderMetrics encoderMetrics) throws JMException {
+        return new ObjectName(JMX_DOMAIN + ":type=" + type + ",name=" + ObjectName.quote(encoderMetrics.getName())
+                + ",direction=" + encoderMetrics.getDirection());
+    }
+}
@@ -0,0 +1,97 @@
+package metrics;
+
+import model.CipherSequence;
+import model.ciphers.Cipher;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Represents an opt-in profile of every sequence stage run while it is installed: calls, time, characters in and
+ * out, and bytes allocated, per stage and direction.
+ *
+ * The report lists the stages of each sequence in order, with each stage's share of its sequence's time and its
+ * allocation per character, so the stages worth fusing or replacing stand out. Recording only touches striped
+ * {@link LongAdder}s, so it is safe from any thread.
+ */
+public class SequenceProfiler implements CipherSequence.StageProfiler {
+    private final ConcurrentMap<String, Stage> stages = new ConcurrentHashMap<>();
+
+    /**
+     * The totals of one stage in one direction
+     */
+    private static class Stage {
+        private final String sequence;
+        private final String name;
+        private final String direction;
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+        private final LongAdder charsIn = new LongAdder();
+        private final LongAdder charsOut = new LongAdder();
+        private final LongAdder allocatedBytes = new LongAdder();
+
+        Stage(String sequence, String name, String direction) {
+            this.sequence = sequence;
+            this.name = name;
+            this.direction = direction;
+        }
+    }
+
+    /**
+     * MODIFIES: this
+     * EFFECTS: Adds one run of a stage to its totals. Runs whose allocation the JVM cannot count add none.
+     */
+    @Override
+    public void stageProfiled(CipherSequence sequence, int index, Cipher cipher, boolean encoding, int charsIn,
+                              int charsOut, long nanos, long allocatedBytes) {
+        String direction = encoding ? "encode" : "decode";
+        String key = String.format("%s %s %05d %s", sequence, direction, index, cipher);
+        Stage stage = stages.get(key);
+        if (stage == null) {
+            stage = stages.computeIfAbsent(key, k -> new Stage(sequence.toString(),
+                    sequence + "[" + index + "] " + cipher, direction));
+        }
+        stage.calls.increment();
+        stage.nanos.add(nanos);
+        stage.charsIn.add(charsIn);
+        stage.charsOut.add(charsOut);
+        stage.allocatedBytes.add(Math.max(0, allocatedBytes));
+    }
+
+    /**
+     * MODIFIES: this
+     * EFFECTS: Forgets everything recorded so far
+     */
+    public void reset() {
+        stages.clear();
+    }
+
+    /**
+     * EFFECTS: Returns a table of every profiled stage, grouped by sequence and direction and in stage order, with
+     *          times in milliseconds
+     * @return The formatted report
+     */
+    public String report() {
+        Map<String, Long> sequenceNanos = new HashMap<>();
+        for (Stage stage : stages.values()) {
+            sequenceNanos.merge(stage.sequence + " " + stage.direction, stage.nanos.sum(), Long::sum);
+        }
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-40s %-7s %8s %10s %6s %12s %12s %14s %8s%n",
+                "Stage", "Dir", "Calls", "Time(ms)", "Share", "Chars in", "Chars out", "Allocated", "B/char"));
+        for (Stage stage : new TreeMap<>(stages).values()) {
+            long nanos = stage.nanos.sum();
+            long total = sequenceNanos.get(stage.sequence + " " + stage.direction);
+            long charsIn = stage.charsIn.sum();
+            long bytes = stage.allocatedBytes.sum();
+            sb.append(String.format("%-40s %-7s %8d %10.3f %5.1f%% %12d %12d %14d %8.2f%n",
+                    stage.name, stage.direction, stage.calls.sum(), nanos / 1e6, total == 0 ? 0 : 100.0 * nanos / total,
+                    charsIn, stage.charsOut.sum(), bytes, charsIn == 0 ? 0 : (double) bytes / charsIn));
+        }
+        return sb.toString();
+    }
+}
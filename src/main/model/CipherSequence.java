@@ -3,12 +3,61 @@ package model;
 import com.google.common.collect.Lists;
 import model.ciphers.Cipher;
 
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
 import java.util.LinkedList;
+import java.util.ListIterator;
 
 /**
  * Represents a sequence of Ciphers. Stores a sequence of Ciphers that can be applied to text.
  */
 public class CipherSequence implements Encoder {
+    /**
+     * Represents a callback notified after each stage of a sequence runs
+     */
+    public interface StageObserver {
+        /**
+         * EFFECTS: Observes one completed stage
+         * @param sequence The sequence being run
+         * @param index The index of the stage in the sequence
+         * @param cipher The cipher at that stage
+         * @param encoding true if encoding, false if decoding
+         * @param length The number of characters the stage transformed
+         * @param nanos The time the stage took
+         */
+        void stageCompleted(CipherSequence sequence, int index, Cipher cipher, boolean encoding, int length,
+                            long nanos);
+    }
+
+    /**
+     * Represents a callback given a detailed profile of each stage of a sequence, for finding slow stages
+     */
+    public interface StageProfiler {
+        /**
+         * EFFECTS: Records the profile of one completed stage
+         * @param sequence The sequence being run
+         * @param index The index of the stage in the sequence
+         * @param cipher The cipher at that stage
+         * @param encoding true if encoding, false if decoding
+         * @param charsIn The number of characters given to the stage
+         * @param charsOut The number of characters the stage returned
+         * @param nanos The time the stage took
+         * @param allocatedBytes The bytes the stage allocated on the calling thread, or -1 if the JVM cannot tell
+         */
+        void stageProfiled(CipherSequence sequence, int index, Cipher cipher, boolean encoding, int charsIn,
+                           int charsOut, long nanos, long allocatedBytes);
+    }
+
+    /**
+     * The observer notified of every stage of every sequence, or null
+     */
+    private static volatile StageObserver stageObserver;
+    /**
+     * The profiler given every stage of every sequence, or null when profiling is off
+     */
+    private static volatile StageProfiler stageProfiler;
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
     /**
      * The name of the sequence
      */
@@ -17,6 +66,29 @@ public class CipherSequence implements Encoder {
      * The internal list of the sequence
      */
     private LinkedList<Cipher> internalList;
+    /**
+     * The whole sequence folded into one substitution table per direction, built on first use and rebuilt whenever
+     * the sequence has changed since. Transient so they are never serialized.
+     */
+    private transient volatile FusedTable fusedEncodeTable;
+    private transient volatile FusedTable fusedDecodeTable;
+    /**
+     * The number of changes made to the stages; a fused table built from an older count is stale
+     */
+    private transient volatile int modifications;
+
+    /**
+     * A fused table and the modification count of the stages it was built from
+     */
+    private static class FusedTable {
+        private final int version;
+        private final char[] table;
+
+        FusedTable(int version, char[] table) {
+            this.version = version;
+            this.table = table;
+        }
+    }
 
     public CipherSequence(String name) {
         this.name = name;
@@ -44,6 +116,7 @@ public class CipherSequence implements Encoder {
      */
     public void pushCipher(Cipher cipher) {
         internalList.addLast(cipher);
+        clearFusedTables();
     }
 
     /**
@@ -56,6 +129,7 @@ public class CipherSequence implements Encoder {
      */
     public void addCipher(Cipher cipher, int index) {
         internalList.add(index, cipher);
+        clearFusedTables();
     }
 
     /**
@@ -66,15 +140,27 @@ public class CipherSequence implements Encoder {
      */
     public void removeCipher(int index) {
         internalList.remove(index);
+        clearFusedTables();
     }
 
     /**
      * REQUIRES: text must be comprised of [A-Z] [a-z]
-     * EFFECTS: Encodes the text with each cipher in the sequence, in series.
+     * EFFECTS: Encodes the text with each cipher in the sequence, in series. Unless stages are being observed, a
+     *          position independent sequence runs as one pass through its fused table, split across cores for long
+     *          texts, as planned by the {@link ExecutionPlanner}.
      * @param text The text to be encoded
      * @return The encoded text
      */
     public String encode(String text) {
+        StageObserver observer = stageObserver;
+        StageProfiler profiler = stageProfiler;
+        if (observer != null || profiler != null) {
+            return observeStages(text, true, observer, profiler);
+        }
+        ExecutionPlanner planner = ExecutionPlanner.getInstance();
+        if (planner.plan(this, text.length()) != ExecutionPlanner.Strategy.STAGED) {
+            return planner.transform(this, text, true);
+        }
         String output = text;
         for (Cipher cipher : internalList) {
             output = cipher.encode(output);
@@ -84,11 +170,20 @@ public class CipherSequence implements Encoder {
 
     /**
      * REQUIRES: text has been encoded by this a CipherSequence with equal internal lists.
-     * EFFECTS: Decodes the text with the inverse of seriesEncode.
+     * EFFECTS: Decodes the text with the inverse of seriesEncode, run as planned like encode.
      * @param text The text to be decoded
      * @return The decoded text
      */
     public String decode(String text) {
+        StageObserver observer = stageObserver;
+        StageProfiler profiler = stageProfiler;
+        if (observer != null || profiler != null) {
+            return observeStages(text, false, observer, profiler);
+        }
+        ExecutionPlanner planner = ExecutionPlanner.getInstance();
+        if (planner.plan(this, text.length()) != ExecutionPlanner.Strategy.STAGED) {
+            return planner.transform(this, text, false);
+        }
         String output = text;
         for (Cipher cipher : Lists.reverse(internalList)) {
             output = cipher.decode(output);
@@ -96,6 +191,144 @@ public class CipherSequence implements Encoder {
         return output;
     }
 
+    /**
+     * EFFECTS: Returns true if every cipher in the sequence is position independent
+     */
+    @Override
+    public boolean isPositionIndependent() {
+        for (Cipher cipher : internalList) {
+            if (!cipher.isPositionIndependent()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * REQUIRES: this is position independent
+     * EFFECTS: Returns the encoding of one character through the fused table of the whole sequence
+     */
+    @Override
+    public char encodeChar(char c) {
+        if (internalList.isEmpty()) {
+            return c;
+        }
+        FusedTable fused = fusedEncodeTable;
+        if (fused == null || fused.version != modifications) {
+            fused = fuseTable(true);
+            fusedEncodeTable = fused;
+        }
+        return Cipher.substitute(c, fused.table);
+    }
+
+    /**
+     * REQUIRES: this is position independent
+     * EFFECTS: Returns the decoding of one character through the fused table of the whole sequence
+     */
+    @Override
+    public char decodeChar(char c) {
+        if (internalList.isEmpty()) {
+            return c;
+        }
+        FusedTable fused = fusedDecodeTable;
+        if (fused == null || fused.version != modifications) {
+            fused = fuseTable(false);
+            fusedDecodeTable = fused;
+        }
+        return Cipher.substitute(c, fused.table);
+    }
+
+    /**
+     * EFFECTS: Returns, for each of A-Z, the result of running it through every stage in encoding or decoding order,
+     *          stamped with the modification count read before the stages were. A change made while the table is
+     *          built leaves it stamped with the older count, so it is rebuilt on next use even if it was stored.
+     */
+    private FusedTable fuseTable(boolean encoding) {
+        int version = modifications;
+        char[] table = new char[26];
+        for (int i = 0; i < 26; i++) {
+            char c = (char) ('A' + i);
+            Iterable<Cipher> stages = encoding ? internalList : Lists.reverse(internalList);
+            for (Cipher cipher : stages) {
+                c = encoding ? cipher.encodeChar(c) : cipher.decodeChar(c);
+            }
+            table[i] = c;
+        }
+        return new FusedTable(version, table);
+    }
+
+    /**
+     * MODIFIES: this
+     * EFFECTS: Counts a change to the stages and drops the fused tables so they are rebuilt from the current stages
+     */
+    private void clearFusedTables() {
+        modifications++;
+        fusedEncodeTable = null;
+        fusedDecodeTable = null;
+    }
+
+    /**
+     * MODIFIES: all sequences
+     * EFFECTS: Sets the observer notified after each stage of any sequence runs, or removes it if null
+     *          While an observer is set, sequences run stage by stage rather than as planned, so it is for opt-in
+     *          diagnostics only.
+     * @param observer The observer
+     */
+    public static void setStageObserver(StageObserver observer) {
+        stageObserver = observer;
+    }
+
+    /**
+     * MODIFIES: all sequences
+     * EFFECTS: Turns on profiling of every stage of any sequence, reporting to profiler, or turns it off if null
+     * @param profiler The profiler
+     */
+    public static void setStageProfiler(StageProfiler profiler) {
+        stageProfiler = profiler;
+    }
+
+    /**
+     * EFFECTS: Runs the stages in encoding or decoding order, timing each and notifying observer and profiler,
+     *          either of which may be null
+     * @param text The text to be transformed
+     * @param encoding true to encode, false to decode
+     * @param observer The observer to notify
+     * @param profiler The profiler to notify
+     * @return The transformed text
+     */
+    private String observeStages(String text, boolean encoding, StageObserver observer, StageProfiler profiler) {
+        String output = text;
+        ListIterator<Cipher> iterator = internalList.listIterator(encoding ? 0 : internalList.size());
+        while (encoding ? iterator.hasNext() : iterator.hasPrevious()) {
+            int index = encoding ? iterator.nextIndex() : iterator.previousIndex();
+            Cipher cipher = encoding ? iterator.next() : iterator.previous();
+            String input = output;
+            long allocatedBefore = profiler == null ? -1 : allocatedBytes();
+            long start = System.nanoTime();
+            output = encoding ? cipher.encode(input) : cipher.decode(input);
+            long nanos = System.nanoTime() - start;
+            long allocated = allocatedBefore < 0 ? -1 : allocatedBytes() - allocatedBefore;
+            if (observer != null) {
+                observer.stageCompleted(this, index, cipher, encoding, output.length(), nanos);
+            }
+            if (profiler != null) {
+                profiler.stageProfiled(this, index, cipher, encoding, input.length(), output.length(), nanos,
+                        allocated);
+            }
+        }
+        return output;
+    }
+
+    /**
+     * EFFECTS: Returns the bytes allocated so far by the calling thread, or -1 if the JVM does not count them
+     */
+    private static long allocatedBytes() {
+        if (THREADS instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) THREADS).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
     /**
      * @return The name of the sequence.
      */
@@ -0,0 +1,257 @@
+package model;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Represents a search for plaintext terms in text encoded by one encoder, without decoding the text.
+ *
+ * Each term is encoded once, and all of them are then found together in a single pass over the ciphertext with an
+ * Aho-Corasick automaton. For position independent encoders a term occurs in the plaintext exactly where its encoding
+ * occurs in the ciphertext (letters are compared without regard to case, as ciphers uppercase them). Only the text
+ * around a hit is ever decoded, through {@link Encoder#decodedView}.
+ */
+public class CipherTextSearch {
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    private final Encoder encoder;
+    private final List<String> terms;
+    private final List<State> states = new ArrayList<>();
+
+    /**
+     * Represents an occurrence of a term in the ciphertext
+     */
+    public static class Match {
+        private final long offset;
+        private final String term;
+        private final int length;
+
+        Match(long offset, String term, int length) {
+            this.offset = offset;
+            this.term = term;
+            this.length = length;
+        }
+
+        /**
+         * @return The index in the ciphertext of the first character of the occurrence
+         */
+        public long getOffset() {
+            return offset;
+        }
+
+        /**
+         * @return The plaintext term found
+         */
+        public String getTerm() {
+            return term;
+        }
+
+        /**
+         * @return The number of characters the occurrence spans
+         */
+        public int getLength() {
+            return length;
+        }
+    }
+
+    /**
+     * An automaton state: sorted transition labels and targets, the failure link, and the terms ending here
+     */
+    private static class State {
+        private char[] labels = new char[0];
+        private int[] targets = new int[0];
+        private int failure;
+        private int[] outputs = new int[0];
+
+        /**
+         * EFFECTS: Returns the target for label, or -1
+         */
+        int next(char label) {
+            int i = Arrays.binarySearch(labels, label);
+            return i >= 0 ? targets[i] : -1;
+        }
+    }
+
+    /**
+     * REQUIRES: encoder is position independent, no term is empty
+     * MODIFIES: this
+     * EFFECTS: Encodes each term with encoder and builds the automaton that finds them all
+     *
+     * @param encoder The encoder the ciphertext was encoded with
+     * @param terms The plaintext terms to find
+     * @throws IllegalArgumentException The encoder is position dependent, or a term is empty
+     */
+    public CipherTextSearch(Encoder encoder, Collection<String> terms) throws IllegalArgumentException {
+        if (!encoder.isPositionIndependent()) {
+            throw new IllegalArgumentException("Cannot search text encoded by " + encoder);
+        }
+        this.encoder = encoder;
+        this.terms = new ArrayList<>(terms);
+        states.add(new State());
+        for (int i = 0; i < this.terms.size(); i++) {
+            if (this.terms.get(i).isEmpty()) {
+                throw new IllegalArgumentException("Search terms cannot be empty");
+            }
+            addTerm(encoder.encode(this.terms.get(i)).toUpperCase(), i);
+        }
+        linkFailures();
+    }
+
+    /**
+     * MODIFIES: this
+     * EFFECTS: Adds the path for encoded to the trie, ending in a state that outputs term index
+     */
+    private void addTerm(String encoded, int index) {
+        int current = 0;
+        for (int i = 0; i < encoded.length(); i++) {
+            State state = states.get(current);
+            int next = state.next(encoded.charAt(i));
+            if (next < 0) {
+                next = states.size();
+                states.add(new State());
+                int at = -Arrays.binarySearch(state.labels, encoded.charAt(i)) - 1;
+                state.labels = insert(state.labels, at, encoded.charAt(i));
+                state.targets = insert(state.targets, at, next);
+            }
+            current = next;
+        }
+        State end = states.get(current);
+        end.outputs = Arrays.copyOf(end.outputs, end.outputs.length + 1);
+        end.outputs[end.outputs.length - 1] = index;
+    }
+
+    /**
+     * MODIFIES: this
+     * EFFECTS: Sets every state's failure link to the longest proper suffix of its path that is also in the trie,
+     *          breadth first, and merges in the outputs of that suffix
+     */
+    private void linkFailures() {
+        Deque<Integer> queue = new ArrayDeque<>();
+        for (int target : states.get(0).targets) {
+            queue.add(target);
+        }
+        while (!queue.isEmpty()) {
+            State state = states.get(queue.poll());
+            for (int i = 0; i < state.labels.length; i++) {
+                State child = states.get(state.targets[i]);
+                child.failure = step(state.failure, state.labels[i]);
+                int[] inherited = states.get(child.failure).outputs;
+                int[] merged = Arrays.copyOf(child.outputs, child.outputs.length + inherited.length);
+                System.arraycopy(inherited, 0, merged, child.outputs.length, inherited.length);
+                child.outputs = merged;
+                queue.add(state.targets[i]);
+            }
+        }
+    }
+
+    /**
+     * EFFECTS: Returns the state reached from state on c, following failure links as needed
+     */
+    private int step(int state, char c) {
+        while (true) {
+            int next = states.get(state).next(c);
+            if (next >= 0) {
+                return next;
+            }
+            if (state == 0) {
+                return 0;
+            }
+            state = states.get(state).failure;
+        }
+    }
+
+    /**
+     * REQUIRES: limit >= 0
+     * EFFECTS: Returns up to limit occurrences of the terms in cipherText, in order of where they end
+     *
+     * @param cipherText The encoded text to search
+     * @param limit The maximum number of matches to return
+     * @return The matches found
+     */
+    public List<Match> search(CharSequence cipherText, int limit) {
+        List<Match> matches = new ArrayList<>();
+        int state = 0;
+        for (int i = 0; i < cipherText.length() && matches.size() < limit; i++) {
+            state = step(state, Character.toUpperCase(cipherText.charAt(i)));
+            collect(state, i, matches, limit);
+        }
+        return matches;
+    }
+
+    /**
+     * REQUIRES: limit >= 0
+     * EFFECTS: Returns up to limit occurrences of the terms in the ciphertext read from reader, in order of where
+     *          they end. The text is streamed in chunks, so it can be any length.
+     *
+     * @param reader The encoded text to search
+     * @param limit The maximum number of matches to return
+     * @return The matches found
+     * @throws IOException Problem reading the text
+     */
+    public List<Match> search(Reader reader, int limit) throws IOException {
+        List<Match> matches = new ArrayList<>();
+        char[] buffer = new char[CHUNK_SIZE];
+        long position = 0;
+        int state = 0;
+        int read;
+        while (matches.size() < limit && (read = reader.read(buffer)) != -1) {
+            for (int i = 0; i < read && matches.size() < limit; i++) {
+                state = step(state, Character.toUpperCase(buffer[i]));
+                collect(state, position + i, matches, limit);
+            }
+            position += read;
+        }
+        return matches;
+    }
+
+    /**
+     * MODIFIES: matches
+     * EFFECTS: Adds a match for every term that ends in state at index end, up to limit
+     */
+    private void collect(int state, long end, List<Match> matches, int limit) {
+        for (int term : states.get(state).outputs) {
+            if (matches.size() == limit) {
+                return;
+            }
+            int length = terms.get(term).length();
+            matches.add(new Match(end - length + 1, terms.get(term), length));
+        }
+    }
+
+    /**
+     * REQUIRES: match was found in cipherText, radius >= 0
+     * EFFECTS: Returns the decoded text around a match, up to radius characters either side
+     *
+     * @param cipherText The encoded text the match was found in
+     * @param match The match
+     * @param radius The number of characters of context either side
+     * @return The decoded context
+     */
+    public String context(CharSequence cipherText, Match match, int radius) {
+        int from = (int) Math.max(0, match.getOffset() - radius);
+        int to = (int) Math.min(cipherText.length(), match.getOffset() + match.getLength() + radius);
+        return encoder.decodedView(cipherText.subSequence(from, to)).toString();
+    }
+
+    private static char[] insert(char[] array, int at, char value) {
+        char[] grown = new char[array.length + 1];
+        System.arraycopy(array, 0, grown, 0, at);
+        System.arraycopy(array, at, grown, at + 1, array.length - at);
+        grown[at] = value;
+        return grown;
+    }
+
+    private static int[] insert(int[] array, int at, int value) {
+        int[] grown = new int[array.length + 1];
+        System.arraycopy(array, 0, grown, 0, at);
+        System.arraycopy(array, at, grown, at + 1, array.length - at);
+        grown[at] = value;
+        return grown;
+    }
+}
@@ -0,0 +1,70 @@
+package model;
+
+/**
+ * Represents a read-only view of some ciphertext as its decoding, without decoding it up front.
+ *
+ * Each charAt decodes one character of the underlying text through the encoder, and subSequence returns another view
+ * over the same text, so nothing is copied until toString is called. Only valid for position independent encoders.
+ */
+public class DecodedCharSequence implements CharSequence {
+    private final Encoder encoder;
+    private final CharSequence source;
+    private final int start;
+    private final int end;
+
+    /**
+     * REQUIRES: encoder is position independent, 0 <= start <= end <= source.length()
+     * MODIFIES: this
+     * EFFECTS: Creates a view of source[start, end) as decoded by encoder
+     *
+     * @param encoder The encoder to decode with
+     * @param source The ciphertext
+     * @param start The first index of source in the view
+     * @param end The index after the last index of source in the view
+     */
+    public DecodedCharSequence(Encoder encoder, CharSequence source, int start, int end) {
+        if (start < 0 || end > source.length() || start > end) {
+            throw new IndexOutOfBoundsException("Invalid range [" + start + ", " + end + ")");
+        }
+        this.encoder = encoder;
+        this.source = source;
+        this.start = start;
+        this.end = end;
+    }
+
+    @Override
+    public int length() {
+        return end - start;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length()) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of length " + length());
+        }
+        return encoder.decodeChar(source.charAt(start + index));
+    }
+
+    /**
+     * EFFECTS: Returns a view of [from, to) of this view, sharing the same ciphertext
+     */
+    @Override
+    public CharSequence subSequence(int from, int to) {
+        if (from < 0 || to > length() || from > to) {
+            throw new IndexOutOfBoundsException("Invalid range [" + from + ", " + to + ")");
+        }
+        return new DecodedCharSequence(encoder, source, start + from, start + to);
+    }
+
+    /**
+     * EFFECTS: Returns the decoded text of this view as a new String
+     */
+    @Override
+    public String toString() {
+        char[] decoded = new char[length()];
+        for (int i = 0; i < decoded.length; i++) {
+            decoded[i] = encoder.decodeChar(source.charAt(start + i));
+        }
+        return new String(decoded);
+    }
+}
@@ -13,4 +13,66 @@ public interface Encoder {
      * EFFECTS: decodes text
      */
     String decode(String text);
+
+    /**
+     * EFFECTS: Returns true if this encoder transforms each character into exactly one character, regardless of the
+     *          character's position or neighbours. Such encoders can transform any span of a text on its own.
+     */
+    default boolean isPositionIndependent() {
+        return false;
+    }
+
+    /**
+     * REQUIRES: text is the part of some plaintext that starts at offset
+     * EFFECTS: Encodes a slice of a longer plaintext without the text before it. Position independent encoders
+     *          ignore offset; a position dependent encoder must override this to start from its state at offset.
+     * @throws UnsupportedOperationException This encoder cannot start encoding part way through a text
+     */
+    default String encodeAt(String text, long offset) throws UnsupportedOperationException {
+        if (!isPositionIndependent()) {
+            throw new UnsupportedOperationException(this + " cannot encode from an offset");
+        }
+        return encode(text);
+    }
+
+    /**
+     * REQUIRES: text is the part of some ciphertext that starts at offset
+     * EFFECTS: Decodes a slice of a longer ciphertext without the text before it. Position independent encoders
+     *          ignore offset; a position dependent encoder must override this to start from its state at offset.
+     * @throws UnsupportedOperationException This encoder cannot start decoding part way through a text
+     */
+    default String decodeAt(String text, long offset) throws UnsupportedOperationException {
+        if (!isPositionIndependent()) {
+            throw new UnsupportedOperationException(this + " cannot decode from an offset");
+        }
+        return decode(text);
+    }
+
+    /**
+     * REQUIRES: this is position independent
+     * EFFECTS: Returns the encoding of a single character
+     */
+    default char encodeChar(char c) {
+        return encode(String.valueOf(c)).charAt(0);
+    }
+
+    /**
+     * REQUIRES: this is position independent
+     * EFFECTS: Returns the decoding of a single character
+     */
+    default char decodeChar(char c) {
+        return decode(String.valueOf(c)).charAt(0);
+    }
+
+    /**
+     * EFFECTS: Returns the decoding of text as a CharSequence. For position independent encoders this is a lazy view
+     *          that decodes each character as it is read, so scanning it (with a regex, for example) never builds the
+     *          decoded String; any other encoder decodes the whole text up front.
+     */
+    default CharSequence decodedView(CharSequence text) {
+        if (isPositionIndependent()) {
+            return new DecodedCharSequence(this, text, 0, text.length());
+        }
+        return decode(text.toString());
+    }
 }
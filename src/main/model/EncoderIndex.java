@@ -0,0 +1,315 @@
+package model;
+
+import model.ciphers.Cipher;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Represents an index of encoder names, kept in a trie so prefix queries cost the length of the prefix plus the
+ * number of results, not the size of the registry.
+ *
+ * Each name is stored with its encoder's class, so results can be filtered by type (for example, only
+ * {@link CipherSequence}s) instead of guessing from the name. Children are kept in sorted arrays, so results come
+ * back in lexicographic order and pages are stable.
+ *
+ * Sequences are also indexed by the ciphers they contain, so "which sequences use this cipher" is a single lookup.
+ * Re-putting a sequence after changing it brings that index up to date.
+ */
+public class EncoderIndex {
+    private final Node root = new Node();
+    private final Map<String, List<String>> sequenceContents = new HashMap<>();
+    private final Map<String, TreeMap<String, Integer>> containedIn = new HashMap<>();
+
+    /**
+     * A trie node: sorted child labels, the matching children, the class of the encoder named by the path to this
+     * node (null if none), and the number of names in this subtree
+     */
+    private static class Node {
+        private char[] labels = new char[0];
+        private Node[] children = new Node[0];
+        private Class<? extends Encoder> type;
+        private int count;
+
+        /**
+         * EFFECTS: Returns the child for label, or null
+         */
+        Node child(char label) {
+            int i = Arrays.binarySearch(labels, label);
+            return i >= 0 ? children[i] : null;
+        }
+
+        /**
+         * MODIFIES: this
+         * EFFECTS: Returns the child for label, creating it in sorted position if absent
+         */
+        Node childOrCreate(char label) {
+            int i = Arrays.binarySearch(labels, label);
+            if (i >= 0) {
+                return children[i];
+            }
+            int at = -i - 1;
+            labels = insert(labels, at, label);
+            Node[] grown = new Node[children.length + 1];
+            System.arraycopy(children, 0, grown, 0, at);
+            System.arraycopy(children, at, grown, at + 1, children.length - at);
+            grown[at] = new Node();
+            children = grown;
+            return grown[at];
+        }
+
+        /**
+         * MODIFIES: this
+         * EFFECTS: Drops the child for label
+         */
+        void removeChild(char label) {
+            int at = Arrays.binarySearch(labels, label);
+            char[] shrunkLabels = new char[labels.length - 1];
+            Node[] shrunk = new Node[children.length - 1];
+            System.arraycopy(labels, 0, shrunkLabels, 0, at);
+            System.arraycopy(labels, at + 1, shrunkLabels, at, labels.length - at - 1);
+            System.arraycopy(children, 0, shrunk, 0, at);
+            System.arraycopy(children, at + 1, shrunk, at, children.length - at - 1);
+            labels = shrunkLabels;
+            children = shrunk;
+        }
+
+        private static char[] insert(char[] array, int at, char value) {
+            char[] grown = new char[array.length + 1];
+            System.arraycopy(array, 0, grown, 0, at);
+            System.arraycopy(array, at, grown, at + 1, array.length - at);
+            grown[at] = value;
+            return grown;
+        }
+    }
+
+    /**
+     * MODIFIES: this
+     * EFFECTS: Indexes encoder under name, replacing any encoder already indexed under it
+     *
+     * @param name The registry name
+     * @param encoder The encoder, whose class is used for type filtering
+     */
+    public void put(String name, Encoder encoder) {
+        Node existing = locate(name);
+        boolean added = existing == null || existing.type == null;
+        Node node = root;
+        if (added) {
+            node.count++;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            node = node.childOrCreate(name.charAt(i));
+            if (added) {
+                node.count++;
+            }
+        }
+        node.type = encoder.getClass();
+        unindexContents(name);
+        if (encoder instanceof CipherSequence) {
+            indexContents(name, (CipherSequence) encoder);
+        }
+    }
+
+    /**
+     * MODIFIES: this
+     * EFFECTS: Records each cipher in sequence as contained in the sequence called name
+     */
+    private void indexContents(String name, CipherSequence sequence) {
+        List<String> contents = new ArrayList<>();
+        for (Cipher cipher : sequence.getCipherList()) {
+            contents.add(cipher.toString());
+            containedIn.computeIfAbsent(cipher.toString(), k -> new TreeMap<>()).merge(name, 1, Integer::sum);
+        }
+        sequenceContents.put(name, contents);
+    }
+
+    /**
+     * MODIFIES: this
+     * EFFECTS: Forgets the ciphers last recorded for the sequence called name, if any
+     */
+    private void unindexContents(String name) {
+        List<String> contents = sequenceContents.remove(name);
+        if (contents == null) {
+            return;
+        }
+        for (String cipherName : contents) {
+            TreeMap<String, Integer> sequences = containedIn.get(cipherName);
+            if (sequences.merge(name, -1, Integer::sum) == 0) {
+                sequences.remove(name);
+            }
+            if (sequences.isEmpty()) {
+                containedIn.remove(cipherName);
+            }
+        }
+    }
+
+    /**
+     * MODIFIES: this
+     * EFFECTS: Removes name from the index, if present
+     *
+     * @param name The registry name
+     */
+    public void remove(String name) {
+        Node terminal = locate(name);
+        if (terminal == null || terminal.type == null) {
+            return;
+        }
+        terminal.type = null;
+        unindexContents(name);
+        Node node = root;
+        node.count--;
+        for (int i = 0; i < name.length(); i++) {
+            Node next = node.child(name.charAt(i));
+            next.count--;
+            if (next.count == 0) {
+                node.removeChild(name.charAt(i));
+                return;
+            }
+            node = next;
+        }
+    }
+
+    /**
+     * MODIFIES: this
+     * EFFECTS: Removes every name from the index
+     */
+    public void clear() {
+        root.labels = new char[0];
+        root.children = new Node[0];
+        root.type = null;
+        root.count = 0;
+        sequenceContents.clear();
+        containedIn.clear();
+    }
+
+    /**
+     * EFFECTS: Returns the number of indexed names that start with prefix
+     *
+     * @param prefix The prefix to match, "" for all names
+     * @return The number of matching names
+     */
+    public int count(String prefix) {
+        Node node = locate(prefix);
+        return node == null ? 0 : node.count;
+    }
+
+    /**
+     * REQUIRES: offset >= 0, limit >= 0
+     * EFFECTS: Returns, in lexicographic order, up to limit names that start with prefix and name an instance of
+     *          type, skipping the first offset such names
+     *
+     * @param prefix The prefix to match, "" for all names
+     * @param type The type to filter by, Encoder.class for all encoders
+     * @param offset The number of matches to skip
+     * @param limit The maximum number of names to return
+     * @return The matching names
+     */
+    public List<String> find(String prefix, Class<? extends Encoder> type, int offset, int limit) {
+        List<String> results = new ArrayList<>();
+        Node node = locate(prefix);
+        if (node != null && limit > 0) {
+            collect(node, new StringBuilder(prefix), type, new int[] {offset}, limit, results);
+        }
+        return results;
+    }
+
+    /**
+     * EFFECTS: Returns prefix extended as far as every indexed name that starts with it agrees, or prefix itself if
+     *          no name starts with it
+     *
+     * @param prefix The prefix to complete
+     * @return The longest common prefix of the names that start with prefix
+     */
+    public String complete(String prefix) {
+        Node node = locate(prefix);
+        if (node == null) {
+            return prefix;
+        }
+        StringBuilder completion = new StringBuilder(prefix);
+        while (node.type == null && node.children.length == 1) {
+            completion.append(node.labels[0]);
+            node = node.children[0];
+        }
+        return completion.toString();
+    }
+
+    /**
+     * REQUIRES: offset >= 0, limit >= 0
+     * EFFECTS: Returns, in lexicographic order, a page of the names of the sequences that contain the cipher called
+     *          cipherName
+     *
+     * @param cipherName The name of the cipher
+     * @param offset The number of sequences to skip
+     * @param limit The maximum number of names to return
+     * @return The matching sequence names
+     */
+    public List<String> findContaining(String cipherName, int offset, int limit) {
+        List<String> results = new ArrayList<>();
+        TreeMap<String, Integer> sequences = containedIn.get(cipherName);
+        if (sequences == null) {
+            return results;
+        }
+        for (String name : sequences.keySet()) {
+            if (results.size() == limit) {
+                break;
+            }
+            if (offset > 0) {
+                offset--;
+            } else {
+                results.add(name);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * EFFECTS: Returns the number of sequences that contain the cipher called cipherName
+     *
+     * @param cipherName The name of the cipher
+     * @return The number of sequences containing it
+     */
+    public int countContaining(String cipherName) {
+        TreeMap<String, Integer> sequences = containedIn.get(cipherName);
+        return sequences == null ? 0 : sequences.size();
+    }
+
+    /**
+     * MODIFIES: path, skip, results
+     * EFFECTS: Appends matching names under node to results in order until limit is reached, after skipping
+     *          skip[0] of them
+     */
+    private static void collect(Node node, StringBuilder path, Class<? extends Encoder> type, int[] skip, int limit,
+                                List<String> results) {
+        if (node.type != null && type.isAssignableFrom(node.type)) {
+            if (skip[0] > 0) {
+                skip[0]--;
+            } else {
+                results.add(path.toString());
+            }
+        }
+        for (int i = 0; i < node.children.length && results.size() < limit; i++) {
+            if (type == Encoder.class && skip[0] >= node.children[i].count) {
+                skip[0] -= node.children[i].count;
+                continue;
+            }
+            path.append(node.labels[i]);
+            collect(node.children[i], path, type, skip, limit, results);
+            path.setLength(path.length() - 1);
+        }
+    }
+
+    /**
+     * EFFECTS: Returns the node reached by following key from the root, or null
+     */
+    private Node locate(String key) {
+        Node node = root;
+        for (int i = 0; i < key.length() && node != null; i++) {
+            node = node.child(key.charAt(i));
+        }
+        return node;
+    }
+}
@@ -0,0 +1,294 @@
+package model;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import model.ciphers.CaesarCipher;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Represents the single planner that decides how each encode or decode call is run.
+ *
+ * Short texts go through a single substitution table on the calling thread, where any parallelism would cost more
+ * than it saves. Texts of at least the fork/join threshold are split across the common fork/join pool, so large ones
+ * use every core. Encoders that are not position independent are run stage by stage as before. The threshold is
+ * either calibrated by a short benchmark or loaded from a profile saved by an earlier calibration on this machine.
+ */
+public class ExecutionPlanner {
+    public static final String PROFILE_FILE = "planner.profile";
+    public static final int DEFAULT_FORK_JOIN_THRESHOLD = 1 << 20;
+    private static final int MIN_LEAF_SIZE = 1 << 14;
+    private static final int[] CALIBRATION_SIZES = {1 << 12, 1 << 14, 1 << 16, 1 << 18, 1 << 20, 1 << 22};
+    private static final int CALIBRATION_ROUNDS = 3;
+
+    /**
+     * Singleton instance
+     */
+    private static ExecutionPlanner singleton;
+
+    private final ForkJoinPool pool;
+    private volatile int forkJoinThreshold;
+
+    /**
+     * How a call is run
+     */
+    public enum Strategy {
+        /**
+         * Each stage in turn, for encoders that are not position independent
+         */
+        STAGED,
+        /**
+         * One pass through a single substitution table on the calling thread
+         */
+        TABLE,
+        /**
+         * One pass through a single substitution table, split across the fork/join pool
+         */
+        FORK_JOIN
+    }
+
+    /**
+     * A calibration result, as saved to a profile
+     */
+    private static class Profile {
+        private final int forkJoinThreshold;
+        private final int parallelism;
+
+        Profile(int forkJoinThreshold, int parallelism) {
+            this.forkJoinThreshold = forkJoinThreshold;
+            this.parallelism = parallelism;
+        }
+    }
+
+    private ExecutionPlanner() {
+        pool = ForkJoinPool.commonPool();
+        forkJoinThreshold = DEFAULT_FORK_JOIN_THRESHOLD;
+    }
+
+    /**
+     * MODIFIES: this
+     * EFFECTS: Returns the ExecutionPlanner, or a new one if it does not already exist
+     * @return The singleton instance of this
+     */
+    public static synchronized ExecutionPlanner getInstance() {
+        if (singleton != null) {
+            return singleton;
+        }
+
+        singleton = new ExecutionPlanner();
+        return singleton;
+    }
+
+    /**
+     * EFFECTS: Returns the strategy for running encoder over a text of the given length
+     *
+     * @param encoder The encoder
+     * @param length The length of the text
+     * @return The strategy to use
+     */
+    public Strategy plan(Encoder encoder, int length) {
+        if (!encoder.isPositionIndependent()) {
+            return Strategy.STAGED;
+        }
+        if (length >= forkJoinThreshold && pool.getParallelism() > 1) {
+            return Strategy.FORK_JOIN;
+        }
+        return Strategy.TABLE;
+    }
+
+    /**
+     * REQUIRES: encoder is position independent
+     * EFFECTS: Returns text encoded or decoded a character at a time through encoder's single-character methods,
+     *          split across the fork/join pool if the text is at least the fork/join threshold
+     *
+     * @param encoder The encoder
+     * @param text The text to transform
+     * @param encoding true to encode, false to decode
+     * @return The transformed text
+     */
+    public String transform(Encoder encoder, String text, boolean encoding) {
+        return run(encoder, text, encoding, plan(encoder, text.length()) == Strategy.FORK_JOIN);
+    }
+
+    /**
+     * EFFECTS: Returns text encoded or decoded a character at a time, split across the fork/join pool if split
+     */
+    private String run(Encoder encoder, String text, boolean encoding, boolean split) {
+        char[] output = new char[text.length()];
+        if (split) {
+            int leafSize = Math.max(MIN_LEAF_SIZE, text.length() / (pool.getParallelism() * 4));
+            pool.invoke(new Slice(encoder, encoding, text, output, 0, text.length(), leafSize));
+        } else {
+            transformRange(encoder, encoding, text, output, 0, text.length());
+        }
+        return new String(output);
+    }
+
+    /**
+     * MODIFIES: output
+     * EFFECTS: Writes the transformation of text[from, to) into output[from, to)
+     */
+    private static void transformRange(Encoder encoder, boolean encoding, String text, char[] output, int from,
+                                       int to) {
+        for (int i = from; i < to; i++) {
+            output[i] = encoding ? encoder.encodeChar(text.charAt(i)) : encoder.decodeChar(text.charAt(i));
+        }
+    }
+
+    /**
+     * A range of a text to transform, split in half until it is no longer than the leaf size
+     */
+    private static class Slice extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Encoder encoder;
+        private final boolean encoding;
+        private final String text;
+        private final char[] output;
+        private final int from;
+        private final int to;
+        private final int leafSize;
+
+        Slice(Encoder encoder, boolean encoding, String text, char[] output, int from, int to, int leafSize) {
+            this.encoder = encoder;
+            this.encoding = encoding;
+            this.text = text;
+            this.output = output;
+            this.from = from;
+            this.to = to;
+            this.leafSize = leafSize;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= leafSize) {
+                transformRange(encoder, encoding, text, output, from, to);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new Slice(encoder, encoding, text, output, from, middle, leafSize),
+                    new Slice(encoder, encoding, text, output, middle, to, leafSize));
+        }
+    }
+
+    /**
+     * @return The shortest text length split across the fork/join pool
+     */
+    public int getForkJoinThreshold() {
+        return forkJoinThreshold;
+    }
+
+    /**
+     * REQUIRES: threshold > 0
+     * MODIFIES: this
+     * EFFECTS: Sets the shortest text length split across the fork/join pool
+     *
+     * @param threshold The threshold, Integer.MAX_VALUE to never split
+     */
+    public void setForkJoinThreshold(int threshold) {
+        forkJoinThreshold = threshold;
+    }
+
+    /**
+     * MODIFIES: this
+     * EFFECTS: Times a table pass against a fork/join pass over texts of increasing size, and sets the fork/join
+     *          threshold to the smallest size at which fork/join is clearly faster, or never if it is not
+     *
+     * @return The calibrated threshold
+     */
+    public int calibrate() {
+        Encoder sample = new CaesarCipher(3);
+        int threshold = Integer.MAX_VALUE;
+        for (int size : CALIBRATION_SIZES) {
+            String text = sampleText(size);
+            long table = bestTime(sample, text, false);
+            long forkJoin = bestTime(sample, text, true);
+            if (forkJoin * 5 < table * 4) {
+                threshold = size;
+                break;
+            }
+        }
+        forkJoinThreshold = threshold;
+        return threshold;
+    }
+
+    /**
+     * EFFECTS: Returns the fastest of several transformations of text, after as many warm-up runs, in nanoseconds
+     */
+    private long bestTime(Encoder encoder, String text, boolean split) {
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < CALIBRATION_ROUNDS * 2; i++) {
+            long start = System.nanoTime();
+            run(encoder, text, true, split);
+            long elapsed = System.nanoTime() - start;
+            if (i >= CALIBRATION_ROUNDS) {
+                best = Math.min(best, elapsed);
+            }
+        }
+        return best;
+    }
+
+    private static String sampleText(int size) {
+        StringBuilder sb = new StringBuilder(size);
+        while (sb.length() < size) {
+            sb.append("The quick brown fox jumps over the lazy dog. ");
+        }
+        return sb.substring(0, size);
+    }
+
+    /**
+     * MODIFIES: this, filesystem
+     * EFFECTS: Loads the fork/join threshold from the profile at path if it was calibrated with the current
+     *          parallelism, otherwise calibrates and saves a new profile there
+     *
+     * @param path The profile file
+     * @throws IOException Problem saving the profile
+     */
+    public void loadOrCalibrate(Path path) throws IOException {
+        if (!loadProfile(path)) {
+            calibrate();
+            saveProfile(path);
+        }
+    }
+
+    /**
+     * MODIFIES: this
+     * EFFECTS: Sets the fork/join threshold from the profile at path and returns true, or returns false if there is
+     *          no usable profile for the current parallelism
+     *
+     * @param path The profile file
+     * @return true if the profile was loaded
+     */
+    public boolean loadProfile(Path path) {
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            Profile profile = new Gson().fromJson(reader, Profile.class);
+            if (profile == null || profile.parallelism != pool.getParallelism() || profile.forkJoinThreshold <= 0) {
+                return false;
+            }
+            forkJoinThreshold = profile.forkJoinThreshold;
+            return true;
+        } catch (IOException | JsonParseException e) {
+            return false;
+        }
+    }
+
+    /**
+     * MODIFIES: filesystem
+     * EFFECTS: Saves the fork/join threshold and current parallelism to the profile at path
+     *
+     * @param path The profile file
+     * @throws IOException Problem writing the profile
+     */
+    public void saveProfile(Path path) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            new Gson().toJson(new Profile(forkJoinThreshold, pool.getParallelism()), writer);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package model;
+
+/**
+ * Represents the encoding of a text that is kept up to date as the text is edited.
+ *
+ * For position independent encoders only the span that changed since the last update is encoded and spliced into
+ * the previous output; any other encoder re-encodes the whole text.
+ */
+public class IncrementalEncoder {
+    private final Encoder encoder;
+    private String source;
+    private String output;
+
+    /**
+     * MODIFIES: this
+     * EFFECTS: Creates an incremental encoding of the empty text
+     *
+     * @param encoder The encoder to encode with
+     */
+    public IncrementalEncoder(Encoder encoder) {
+        this.encoder = encoder;
+        source = "";
+        output = "";
+    }
+
+    /**
+     * MODIFIES: this
+     * EFFECTS: Returns the encoding of text, re-encoding only what changed since the last update when possible
+     *
+     * @param text The current text
+     * @return The encoded text
+     */
+    public String update(String text) {
+        if (!encoder.isPositionIndependent()) {
+            output = encoder.encode(text);
+        } else if (!text.equals(source)) {
+            output = patch(text);
+        }
+        source = text;
+        return output;
+    }
+
+    /**
+     * REQUIRES: encoder is position independent
+     * EFFECTS: Encodes the span between the prefix and suffix text shares with source, and splices it into output
+     */
+    private String patch(String text) {
+        int max = Math.min(text.length(), source.length());
+        int prefix = 0;
+        while (prefix < max && text.charAt(prefix) == source.charAt(prefix)) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < max - prefix
+                && text.charAt(text.length() - 1 - suffix) == source.charAt(source.length() - 1 - suffix)) {
+            suffix++;
+        }
+        String changed = encoder.encode(text.substring(prefix, text.length() - suffix));
+        return output.substring(0, prefix) + changed + output.substring(output.length() - suffix);
+    }
+}
@@ -42,6 +42,14 @@ public class AffineCipher extends Cipher {
         }
     }
 
+    /**
+     * @return Keys a and b
+     */
+    @Override
+    public int[] keyParameters() {
+        return new int[] {keyA, keyB};
+    }
+
     /**
      * REQUIRES: An alphabetic string of length 1, uppercase.
      * EFFECTS: Returns the encoded version of the letter
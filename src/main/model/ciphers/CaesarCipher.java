@@ -81,6 +81,14 @@ public class CaesarCipher extends Cipher {
         return ALPHA_MAP.inverse().get(newPosition);
     }
 
+    /**
+     * @return The shift, the only key parameter
+     */
+    @Override
+    public int[] keyParameters() {
+        return new int[] {letterShift};
+    }
+
     public int getShift() {
         return letterShift;
     }
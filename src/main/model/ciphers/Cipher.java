@@ -2,12 +2,14 @@ package model.ciphers;
 
 import com.google.common.collect.HashBiMap;
 import model.Encoder;
+import model.ExecutionPlanner;
 
 import java.util.HashMap;
 
 /**
  * Represents an abstract elementary {@link Cipher} that performs transformations on text.
- * Ciphers are mutable..sigh.
+ * Ciphers never change once built, so equal ciphers can be shared through {@link CipherInterner}, along with the
+ * substitution tables they build on first use.
  *
  * To create a new type of cipher, Override the constructor and Implement encodeLetter() and decodeLetter()
  *
@@ -19,6 +21,13 @@ public abstract class Cipher implements Encoder {
      */
     private String cipherName;
 
+    /**
+     * Substitution tables for A-Z, built from encodeLetter and decodeLetter on first use. Transient so they are
+     * never serialized.
+     */
+    private transient volatile char[] encodeTable;
+    private transient volatile char[] decodeTable;
+
     /**
      * A map that maps the alphabet to positions 0-25.
      */
@@ -69,24 +78,135 @@ public abstract class Cipher implements Encoder {
 
     /**
      * REQUIRES: Text should be unencoded.
-     * EFFECTS: Returns a copy of the input text, transformed.
+     * EFFECTS: Returns a copy of the input text, transformed. Long texts are split across cores, as planned by the
+     *          {@link ExecutionPlanner}.
      *
      * @param text The input text to be transformed.
      * @return The output text.
      */
     public String encode(String text) {
-        return transformString(text, this::encodeLetter);
+        ExecutionPlanner planner = ExecutionPlanner.getInstance();
+        if (planner.plan(this, text.length()) == ExecutionPlanner.Strategy.FORK_JOIN) {
+            return planner.transform(this, text, true);
+        }
+        return transformTable(text, getEncodeTable());
     }
 
     /**
      * REQUIRES: Text should be previously encoded by this cipher at the same configuration.
-     * EFFECTS: Returns a copy of the input text, inversely transformed.
+     * EFFECTS: Returns a copy of the input text, inversely transformed. Long texts are split across cores, as
+     *          planned by the {@link ExecutionPlanner}.
      *
      * @param text The input text to be inversely transformed.
      * @return The output text.
      */
     public String decode(String text) {
-        return transformString(text, this::decodeLetter);
+        ExecutionPlanner planner = ExecutionPlanner.getInstance();
+        if (planner.plan(this, text.length()) == ExecutionPlanner.Strategy.FORK_JOIN) {
+            return planner.transform(this, text, false);
+        }
+        return transformTable(text, getDecodeTable());
+    }
+
+    /**
+     * EFFECTS: Returns the encoding of one character through the encode table
+     */
+    @Override
+    public char encodeChar(char c) {
+        return substitute(c, getEncodeTable());
+    }
+
+    /**
+     * EFFECTS: Returns the decoding of one character through the decode table
+     */
+    @Override
+    public char decodeChar(char c) {
+        return substitute(c, getDecodeTable());
+    }
+
+    /**
+     * REQUIRES: table has 26 entries, indexed by alphabet position
+     * EFFECTS: Returns the table entry for c if it is a letter of either case, otherwise c itself
+     *
+     * @param c The character to substitute
+     * @param table The substitution table for A-Z
+     * @return The substituted character
+     */
+    public static char substitute(char c, char[] table) {
+        if (c >= 'a' && c <= 'z') {
+            return table[c - 'a'];
+        } else if (c >= 'A' && c <= 'Z') {
+            return table[c - 'A'];
+        }
+        return c;
+    }
+
+    /**
+     * EFFECTS: Returns the values of the keys this cipher was built with, in constructor order. Two ciphers of the
+     *          same class with the same key parameters transform text identically.
+     *
+     * @return The key parameters, empty for keyless ciphers
+     */
+    public int[] keyParameters() {
+        return new int[0];
+    }
+
+    /**
+     * MODIFIES: this
+     * EFFECTS: Returns the encode table, building it on first use
+     */
+    private char[] getEncodeTable() {
+        char[] table = encodeTable;
+        if (table == null) {
+            table = buildTable(this::encodeLetter);
+            encodeTable = table;
+        }
+        return table;
+    }
+
+    /**
+     * MODIFIES: this
+     * EFFECTS: Returns the decode table, building it on first use
+     */
+    private char[] getDecodeTable() {
+        char[] table = decodeTable;
+        if (table == null) {
+            table = buildTable(this::decodeLetter);
+            decodeTable = table;
+        }
+        return table;
+    }
+
+    /**
+     * EFFECTS: Returns the result of le for each of A-Z, indexed by alphabet position
+     */
+    private static char[] buildTable(LetterTransformer le) {
+        char[] table = new char[26];
+        for (int i = 0; i < 26; i++) {
+            table[i] = le.transform(ALPHA_MAP.inverse().get(i)).charAt(0);
+        }
+        return table;
+    }
+
+    /**
+     * EFFECTS: Returns text with letters uppercased and substituted through table, any other character copied as is
+     */
+    private static String transformTable(String text, char[] table) {
+        char[] output = new char[text.length()];
+        for (int i = 0; i < output.length; i++) {
+            output[i] = substitute(text.charAt(i), table);
+        }
+        return new String(output);
+    }
+
+    /**
+     * EFFECTS: Returns true, as encode and decode substitute each letter through a fixed 26 entry table, whatever
+     *          its position. Subclasses that override encode or decode with a position dependent transformation must
+     *          override this.
+     */
+    @Override
+    public boolean isPositionIndependent() {
+        return true;
     }
 
     /**
@@ -97,21 +217,26 @@ public abstract class Cipher implements Encoder {
     }
 
     /**
-     * REQUIRES: Alphabetic text, and valid SAM
-     * EFFECTS: Returns a new transformed version of some text.
+     * REQUIRES: valid SAM
+     * EFFECTS: Returns a new transformed version of some text. Letters are uppercased and transformed, any other
+     *          character (spaces, digits, punctuation, line breaks) is copied as is, so the output always has the same
+     *          length as the input.
      *
      * @param text The text to be transformed
      * @param le The functional method
      * @return The transformed text
      */
     protected String transformString(String text, LetterTransformer le) {
-        text = text.toUpperCase(); //guard for uppercase
-        StringBuilder output = new StringBuilder();
+        StringBuilder output = new StringBuilder(text.length());
         for (int i = 0; i < text.length(); i++) {
-            if (text.substring(i, i + 1).equals(" ")) {
-                output.append(" ");
+            char c = text.charAt(i);
+            if (c >= 'a' && c <= 'z') {
+                c = (char) (c - 'a' + 'A'); //guard for uppercase
+            }
+            if (c >= 'A' && c <= 'Z') {
+                output.append(le.transform(String.valueOf(c)));
             } else {
-                output.append(le.transform(text.substring(i, i + 1)));
+                output.append(c);
             }
         }
         return output.toString();
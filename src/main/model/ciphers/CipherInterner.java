@@ -0,0 +1,66 @@
+package model.ciphers;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Represents the single canonicalizing store of ciphers, keyed by class and key parameters.
+ *
+ * Interning a cipher returns the first equal cipher seen, so thousands of sequences that each load their own copy of
+ * CaesarCipher-5 end up sharing one instance, and one set of substitution tables. Canonical ciphers are held for the
+ * life of the application; there is one per distinct key, so the store stays small.
+ */
+public class CipherInterner {
+    /**
+     * Singleton instance
+     */
+    private static CipherInterner singleton;
+
+    private final Map<String, Cipher> canonical = new ConcurrentHashMap<>();
+
+    private CipherInterner() {
+    }
+
+    /**
+     * MODIFIES: this
+     * EFFECTS: Returns the CipherInterner, or a new one if it does not already exist
+     * @return The singleton instance of this
+     */
+    public static synchronized CipherInterner getInstance() {
+        if (singleton != null) {
+            return singleton;
+        }
+
+        singleton = new CipherInterner();
+        return singleton;
+    }
+
+    /**
+     * MODIFIES: this
+     * EFFECTS: Returns the canonical cipher equal to cipher, making cipher canonical if it is the first of its key
+     *
+     * @param cipher The cipher to intern
+     * @param <T> The type of cipher
+     * @return The shared cipher with the same class and key parameters
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends Cipher> T intern(T cipher) {
+        return (T) canonical.computeIfAbsent(keyOf(cipher), key -> cipher);
+    }
+
+    /**
+     * @return The number of distinct ciphers interned
+     */
+    public int size() {
+        return canonical.size();
+    }
+
+    /**
+     * EFFECTS: Returns the key equal ciphers share: their class name and key parameters. The name is included too,
+     *          so a cipher saved under an older naming scheme never renames its current equivalent.
+     */
+    private static String keyOf(Cipher cipher) {
+        return cipher.getClass().getName() + Arrays.toString(cipher.keyParameters()) + cipher.toString();
+    }
+}
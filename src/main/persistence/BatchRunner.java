@@ -0,0 +1,335 @@
+package persistence;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import model.Encoder;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Represents a job that encodes or decodes every file in a directory tree into a mirror of the tree.
+ *
+ * Files are streamed through a {@link FileTranscoder} on a work-stealing pool of bounded size. Each output is written
+ * to a {@value #PART_EXT} file beside its target and then moved into place, so a target is either absent or
+ * complete. Every finished file is appended to a checkpoint manifest in the target directory; running the same job
+ * again skips files whose source size and modification time match the manifest, so a killed job resumes where it
+ * left off. A manifest written by a different encoder or direction is discarded. With a {@link ResultCache}, a file
+ * whose content was converted the same way before, in any job, is copied from the cache instead of converted again.
+ */
+public class BatchRunner {
+    public static final String MANIFEST_FILE = ".xypher-batch" + FileHandler.FILE_EXT;
+    public static final String PART_EXT = ".part";
+    private static final Gson GSON = new Gson();
+
+    private final Encoder encoder;
+    private final boolean encoding;
+    private final FileTranscoder transcoder;
+    private final String header;
+    private final int parallelism;
+    private ResultCache cache;
+
+    /**
+     * Represents the outcome of a run
+     */
+    public static class Report {
+        private final AtomicInteger converted = new AtomicInteger();
+        private final AtomicInteger skipped = new AtomicInteger();
+        private final AtomicInteger cacheHits = new AtomicInteger();
+        private final AtomicLong bytes = new AtomicLong();
+        private final SortedMap<String, String> failures = new ConcurrentSkipListMap<>();
+        private long elapsedNanos;
+
+        /**
+         * @return The number of files encoded or decoded by this run
+         */
+        public int getConverted() {
+            return converted.get();
+        }
+
+        /**
+         * @return The number of files skipped because an earlier run already did them
+         */
+        public int getSkipped() {
+            return skipped.get();
+        }
+
+        /**
+         * @return The number of converted files copied from the result cache
+         */
+        public int getCacheHits() {
+            return cacheHits.get();
+        }
+
+        /**
+         * @return The number of source bytes converted by this run
+         */
+        public long getBytes() {
+            return bytes.get();
+        }
+
+        /**
+         * @return The error for each file that could not be converted, by path relative to the source directory
+         */
+        public SortedMap<String, String> getFailures() {
+            return Collections.unmodifiableSortedMap(failures);
+        }
+
+        /**
+         * @return The wall-clock time the run took, in nanoseconds
+         */
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        /**
+         * @return The number of files converted per second
+         */
+        public double filesPerSecond() {
+            return elapsedNanos == 0 ? 0 : getConverted() * 1e9 / elapsedNanos;
+        }
+
+        /**
+         * @return The number of source megabytes converted per second
+         */
+        public double megabytesPerSecond() {
+            return elapsedNanos == 0 ? 0 : getBytes() * 1e9 / elapsedNanos / (1024 * 1024);
+        }
+    }
+
+    /**
+     * The first line of a manifest: the job it checkpoints, keyed by the encoder's ciphers as well as its name so an
+     * edited sequence starts a new job
+     */
+    private static class Header {
+        private final String encoder;
+        private final boolean encoding;
+
+        Header(String encoder, boolean encoding) {
+            this.encoder = encoder;
+            this.encoding = encoding;
+        }
+    }
+
+    /**
+     * A manifest line: a finished file and the state of its source when it was converted
+     */
+    private static class Entry {
+        private final String path;
+        private final long size;
+        private final long modified;
+
+        Entry(String path, long size, long modified) {
+            this.path = path;
+            this.size = size;
+            this.modified = modified;
+        }
+    }
+
+    /**
+     * REQUIRES: encoder is position independent, parallelism > 0
+     * MODIFIES: this
+     * EFFECTS: Creates a runner that converts files with encoder on up to parallelism threads
+     *
+     * @param encoder The encoder to use
+     * @param encoding true to encode, false to decode
+     * @param parallelism The maximum number of files converted at once
+     * @throws IllegalArgumentException The encoder is not position independent
+     */
+    public BatchRunner(Encoder encoder, boolean encoding, int parallelism) throws IllegalArgumentException {
+        this.transcoder = new FileTranscoder(encoder, encoding);
+        this.encoder = encoder;
+        this.encoding = encoding;
+        this.header = GSON.toJson(new Header(ResultCache.canonicalKey(encoder), encoding));
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * MODIFIES: this
+     * EFFECTS: Sets the cache results are looked up in and added to, or stops caching if null
+     *
+     * @param cache The result cache
+     */
+    public void setCache(ResultCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * REQUIRES: targetDir is not inside sourceDir
+     * MODIFIES: filesystem
+     * EFFECTS: Converts every regular file under sourceDir to the same relative path under targetDir, skipping those
+     *          the manifest shows are already done. A file that fails is reported and the rest carry on.
+     *
+     * @param sourceDir The directory to convert
+     * @param targetDir The directory to write into, created if needed
+     * @return The outcome of the run
+     * @throws IOException Problem listing the source or writing the manifest
+     * @throws IllegalArgumentException targetDir is inside sourceDir
+     */
+    public Report run(Path sourceDir, Path targetDir) throws IOException, IllegalArgumentException {
+        Path source = sourceDir.toAbsolutePath().normalize();
+        Path target = targetDir.toAbsolutePath().normalize();
+        if (target.startsWith(source)) {
+            throw new IllegalArgumentException("Target directory cannot be inside the source directory");
+        }
+        Files.createDirectories(target);
+        Path manifestPath = target.resolve(MANIFEST_FILE);
+        Map<String, Entry> done = readManifest(manifestPath);
+        Report report = new Report();
+        long start = System.nanoTime();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try (Writer manifest = openManifest(manifestPath, done == null)) {
+            Map<String, Entry> previous = done == null ? new HashMap<>() : done;
+            List<ForkJoinTask<?>> tasks = new ArrayList<>();
+            for (Path file : listFiles(source)) {
+                tasks.add(pool.submit(() -> process(source, target, file, previous, manifest, report)));
+            }
+            tasks.forEach(ForkJoinTask::join);
+        } finally {
+            pool.shutdownNow();
+        }
+        report.elapsedNanos = System.nanoTime() - start;
+        return report;
+    }
+
+    /**
+     * MODIFIES: filesystem, manifest, report
+     * EFFECTS: Converts one file unless it is already done, recording the outcome
+     */
+    private void process(Path source, Path target, Path file, Map<String, Entry> done, Writer manifest,
+                         Report report) {
+        String relative = source.relativize(file).toString().replace(file.getFileSystem().getSeparator(), "/");
+        Path output = target.resolve(relative);
+        try {
+            Entry entry = new Entry(relative, Files.size(file), Files.getLastModifiedTime(file).toMillis());
+            Entry previous = done.get(relative);
+            if (previous != null && previous.size == entry.size && previous.modified == entry.modified
+                    && Files.exists(output)) {
+                report.skipped.incrementAndGet();
+                return;
+            }
+            if (convert(file, output)) {
+                report.cacheHits.incrementAndGet();
+            }
+            record(manifest, entry);
+            report.converted.incrementAndGet();
+            report.bytes.addAndGet(entry.size);
+        } catch (IOException | RuntimeException e) {
+            report.failures.put(relative, e.getClass().getSimpleName() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * MODIFIES: filesystem, cache
+     * EFFECTS: Copies the cached result for file, or streams file through the encoder and caches the result, into a
+     *          part file beside output, then moves it over output in one step. Returns true if the result was cached.
+     */
+    private boolean convert(Path file, Path output) throws IOException {
+        Files.createDirectories(output.getParent());
+        Path part = output.resolveSibling(output.getFileName() + PART_EXT);
+        ResultCache cache = this.cache;
+        String key = cache == null ? null : ResultCache.keyOf(encoder, encoding, file);
+        try {
+            boolean hit = key != null && cache.copyTo(key, part);
+            if (!hit) {
+                transcoder.transcode(file, part, done -> { });
+                if (key != null) {
+                    cache.put(key, part);
+                }
+            }
+            Files.move(part, output, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            return hit;
+        } finally {
+            Files.deleteIfExists(part);
+        }
+    }
+
+    /**
+     * MODIFIES: manifest
+     * EFFECTS: Appends entry to the manifest and flushes it, so it survives the process being killed
+     */
+    private static void record(Writer manifest, Entry entry) throws IOException {
+        synchronized (manifest) {
+            manifest.write("\n" + GSON.toJson(entry));
+            manifest.flush();
+        }
+    }
+
+    /**
+     * EFFECTS: Returns the files recorded as done by the manifest at path, by relative path, or null if there is no
+     *          manifest for this job. A line torn by a killed run is ignored.
+     */
+    private Map<String, Entry> readManifest(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return null;
+        }
+        List<String> lines = Files.readAllLines(path, StandardCharsets.UTF_8);
+        if (lines.isEmpty() || !lines.get(0).equals(header)) {
+            return null;
+        }
+        Map<String, Entry> done = new HashMap<>();
+        for (String line : lines.subList(1, lines.size())) {
+            Entry entry = parseEntry(line);
+            if (entry != null && entry.path != null) {
+                done.put(entry.path, entry);
+            }
+        }
+        return done;
+    }
+
+    /**
+     * EFFECTS: Returns the entry on a manifest line, or null if the line is blank or torn
+     */
+    private static Entry parseEntry(String line) {
+        try {
+            return GSON.fromJson(line, Entry.class);
+        } catch (JsonParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * MODIFIES: filesystem
+     * EFFECTS: Opens the manifest at path for appending, or starts it afresh with this job's header if restart
+     */
+    private Writer openManifest(Path path, boolean restart) throws IOException {
+        if (!restart) {
+            return Files.newBufferedWriter(path, StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        }
+        Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8);
+        writer.write(header);
+        writer.flush();
+        return writer;
+    }
+
+    /**
+     * EFFECTS: Returns every regular file under dir in path order, leaving out the manifest and part files of a run
+     *          that wrote into dir, so one job's output can be the next one's input
+     */
+    private static List<Path> listFiles(Path dir) throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            return paths.filter(Files::isRegularFile)
+                    .filter(path -> !path.getFileName().toString().equals(MANIFEST_FILE))
+                    .filter(path -> !path.getFileName().toString().endsWith(PART_EXT))
+                    .sorted().collect(Collectors.toList());
+        }
+    }
+}
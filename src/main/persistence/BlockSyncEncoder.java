@@ -0,0 +1,220 @@
+package persistence;
+
+import model.Encoder;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+
+/**
+ * Represents an encoding of one large file into another that is kept up to date block by block.
+ *
+ * The source is split into fixed-size blocks, and a manifest of each block's checksum is kept next to the encoded
+ * output, in a {@value #MANIFEST_EXT} file. On the next sync only the blocks whose checksums changed are encoded
+ * and written back, with positional writes into the existing output, so a file that grew or changed in a few places
+ * costs time in proportion to the change rather than the file. The manifest is replaced only after the output is
+ * written, so an interrupted sync is simply redone. Only position independent encoders can be used, since each
+ * block is encoded on its own.
+ */
+public class BlockSyncEncoder {
+    public static final String MANIFEST_EXT = ".blocks";
+    public static final int DEFAULT_BLOCK_SIZE = 1024 * 1024;
+    private static final int MAGIC = 0x58594253;
+
+    private final ByteTable table;
+    private final String key;
+    private final int blockSize;
+
+    /**
+     * Represents the outcome of a sync
+     */
+    public static class Result {
+        private final int blocks;
+        private final int rewritten;
+        private final long bytesWritten;
+
+        Result(int blocks, int rewritten, long bytesWritten) {
+            this.blocks = blocks;
+            this.rewritten = rewritten;
+            this.bytesWritten = bytesWritten;
+        }
+
+        /**
+         * @return The number of blocks in the source
+         */
+        public int getBlocks() {
+            return blocks;
+        }
+
+        /**
+         * @return The number of blocks encoded and written by the sync
+         */
+        public int getRewritten() {
+            return rewritten;
+        }
+
+        /**
+         * @return The number of bytes written to the output
+         */
+        public long getBytesWritten() {
+            return bytesWritten;
+        }
+    }
+
+    /**
+     * REQUIRES: encoder is position independent, blockSize > 0
+     * MODIFIES: this
+     * EFFECTS: Creates a block encoder for encoder
+     *
+     * @param encoder The encoder to encode with
+     * @param blockSize The number of bytes in a block
+     * @throws IllegalArgumentException The encoder is not position independent
+     */
+    public BlockSyncEncoder(Encoder encoder, int blockSize) throws IllegalArgumentException {
+        this.table = new ByteTable(encoder, true);
+        this.key = ResultCache.canonicalKey(encoder);
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * EFFECTS: Returns the manifest file kept for output
+     *
+     * @param output The encoded output
+     * @return The path of its manifest
+     */
+    public static Path manifestOf(Path output) {
+        return output.resolveSibling(output.getFileName() + MANIFEST_EXT);
+    }
+
+    /**
+     * MODIFIES: filesystem
+     * EFFECTS: Brings output up to date with the encoding of source, encoding and writing only the blocks that
+     *          changed since the last sync. Everything is encoded if there is no usable manifest, for example on the
+     *          first sync or after the encoder or block size changed.
+     *
+     * @param source The plaintext file
+     * @param output The encoded file, created if it does not exist
+     * @return The outcome of the sync
+     * @throws IOException Problem reading the source or writing the output
+     */
+    public Result sync(Path source, Path output) throws IOException {
+        long[] previous = readManifest(manifestOf(output), output);
+        long[] hashes;
+        Result result;
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ)) {
+            hashes = new long[(int) ((in.size() + blockSize - 1) / blockSize)];
+            try (FileChannel out = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                result = syncBlocks(in, out, previous, hashes);
+                out.truncate(in.size());
+            }
+        }
+        writeManifest(manifestOf(output), hashes, Files.size(output));
+        return result;
+    }
+
+    /**
+     * MODIFIES: out, hashes
+     * EFFECTS: Checksums every block of in into hashes, and encodes into out each block whose checksum differs from
+     *          previous
+     */
+    private Result syncBlocks(FileChannel in, FileChannel out, long[] previous, long[] hashes) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) Math.max(1, Math.min(blockSize, in.size())));
+        int rewritten = 0;
+        long written = 0;
+        for (int i = 0; i < hashes.length; i++) {
+            long position = (long) i * blockSize;
+            readBlock(in, buffer, position);
+            hashes[i] = checksum(buffer);
+            if (i >= previous.length || previous[i] != hashes[i]) {
+                table.apply(buffer, 0, buffer.limit());
+                written += writeBlock(out, buffer, position);
+                rewritten++;
+            }
+        }
+        return new Result(hashes.length, rewritten, written);
+    }
+
+    /**
+     * MODIFIES: buffer
+     * EFFECTS: Fills buffer with the block of in at position, flipped ready to read
+     */
+    private static void readBlock(FileChannel in, ByteBuffer buffer, long position) throws IOException {
+        buffer.clear();
+        while (buffer.hasRemaining() && in.read(buffer, position + buffer.position()) >= 0) {
+            continue;
+        }
+        buffer.flip();
+    }
+
+    /**
+     * MODIFIES: out
+     * EFFECTS: Writes all of buffer to out at position, returning the number of bytes written
+     */
+    private static int writeBlock(FileChannel out, ByteBuffer buffer, long position) throws IOException {
+        int length = buffer.remaining();
+        while (buffer.hasRemaining()) {
+            out.write(buffer, position + length - buffer.remaining());
+        }
+        return length;
+    }
+
+    /**
+     * EFFECTS: Returns a 64-bit checksum of the readable bytes of buffer: its CRC32 in the high half and its Adler32
+     *          in the low half, so a block has to fool both to be missed
+     */
+    private static long checksum(ByteBuffer buffer) {
+        CRC32 crc = new CRC32();
+        Adler32 adler = new Adler32();
+        crc.update(buffer.array(), buffer.arrayOffset(), buffer.limit());
+        adler.update(buffer.array(), buffer.arrayOffset(), buffer.limit());
+        return crc.getValue() << 32 | adler.getValue();
+    }
+
+    /**
+     * EFFECTS: Returns the block checksums in the manifest at path, or none if it is missing, unreadable, was written
+     *          for another encoder or block size, or does not match the size of output
+     */
+    private long[] readManifest(Path path, Path output) {
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(path))) {
+            if (in.readInt() != MAGIC || !in.readUTF().equals(key) || in.readInt() != blockSize
+                    || in.readLong() != Files.size(output)) {
+                return new long[0];
+            }
+            long[] hashes = new long[in.readInt()];
+            for (int i = 0; i < hashes.length; i++) {
+                hashes[i] = in.readLong();
+            }
+            return hashes;
+        } catch (IOException e) {
+            return new long[0];
+        }
+    }
+
+    /**
+     * MODIFIES: filesystem
+     * EFFECTS: Replaces the manifest at path with hashes for an output of size bytes, writing a temporary file
+     *          first and moving it into place
+     */
+    private void writeManifest(Path path, long[] hashes, long size) throws IOException {
+        Path part = path.resolveSibling(path.getFileName() + BatchRunner.PART_EXT);
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(part))) {
+            out.writeInt(MAGIC);
+            out.writeUTF(key);
+            out.writeInt(blockSize);
+            out.writeLong(size);
+            out.writeInt(hashes.length);
+            for (long hash : hashes) {
+                out.writeLong(hash);
+            }
+        }
+        Files.move(part, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+}
@@ -0,0 +1,73 @@
+package persistence;
+
+import model.Encoder;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Represents a 256-entry table that encodes or decodes Latin-1 bytes with an encoder, applied to byte arrays and
+ * buffers in place. Shared by the encoder streams and channels.
+ */
+final class ByteTable {
+    private final byte[] table;
+
+    /**
+     * REQUIRES: encoder is position independent
+     * MODIFIES: this
+     * EFFECTS: Builds the table for one direction of encoder
+     *
+     * @throws IllegalArgumentException The encoder is not position independent
+     */
+    ByteTable(Encoder encoder, boolean encoding) throws IllegalArgumentException {
+        if (encoding) {
+            table = EncoderCharset.encodeTable(encoder);
+        } else {
+            char[] chars = EncoderCharset.decodeTable(encoder);
+            table = new byte[256];
+            for (int i = 0; i < 256; i++) {
+                table[i] = (byte) chars[i];
+            }
+        }
+    }
+
+    /**
+     * EFFECTS: Returns the transformation of one byte
+     */
+    int apply(int b) {
+        return table[b & 0xFF] & 0xFF;
+    }
+
+    /**
+     * MODIFIES: bytes
+     * EFFECTS: Transforms bytes[off, off + len) in place
+     */
+    void apply(byte[] bytes, int off, int len) {
+        for (int i = off; i < off + len; i++) {
+            bytes[i] = table[bytes[i] & 0xFF];
+        }
+    }
+
+    /**
+     * MODIFIES: buffer
+     * EFFECTS: Transforms the bytes of buffer at absolute indices [from, to) in place, leaving its position alone
+     */
+    void apply(ByteBuffer buffer, int from, int to) {
+        if (buffer.hasArray()) {
+            apply(buffer.array(), buffer.arrayOffset() + from, to - from);
+            return;
+        }
+        for (int i = from; i < to; i++) {
+            buffer.put(i, table[buffer.get(i) & 0xFF]);
+        }
+    }
+
+    /**
+     * MODIFIES: out, in
+     * EFFECTS: Moves as many bytes from in to out as fit, transforming them on the way
+     */
+    void transfer(ByteBuffer in, ByteBuffer out) {
+        while (in.hasRemaining() && out.hasRemaining()) {
+            out.put(table[in.get() & 0xFF]);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package persistence;
+
+import model.CipherSequence;
+import model.Encoder;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Represents a watcher on {@link FileHandler#DATA_FOLDER} that reloads encoder files changed by other processes.
+ *
+ * Events are debounced: once a change arrives, the watcher keeps collecting until the folder has been quiet for the
+ * debounce interval, then parses only the files that changed on its own thread and hands the whole batch to a
+ * consumer on the given executor. Files that fail to parse (for example, because they are still being written) are
+ * skipped; the write that completes them triggers another event. Files that parse but do not hold an encoder of their
+ * own name are skipped too. Deleted files are ignored.
+ */
+public class DataFolderWatcher implements Closeable {
+    /**
+     * Default quiet period before a batch of changes is loaded, in milliseconds
+     */
+    public static final long DEFAULT_DEBOUNCE = 250;
+
+    private final FileHandler fileHandler;
+    private final long debounce;
+    private final Executor applyExecutor;
+    private final Consumer<Map<String, Encoder>> onChange;
+    private final WatchService watchService;
+
+    /**
+     * MODIFIES: this
+     * EFFECTS: Starts watching the data folder on a background thread
+     *
+     * @param fileHandler The file handler used to parse changed files
+     * @param debounce The quiet period before a batch is loaded, in milliseconds
+     * @param applyExecutor The executor the consumer is run on
+     * @param onChange Receives each batch of reloaded encoders, keyed by name
+     * @throws IOException Problem watching the folder
+     */
+    public DataFolderWatcher(FileHandler fileHandler, long debounce, Executor applyExecutor,
+                             Consumer<Map<String, Encoder>> onChange) throws IOException {
+        this.fileHandler = fileHandler;
+        this.debounce = debounce;
+        this.applyExecutor = applyExecutor;
+        this.onChange = onChange;
+        watchService = FileSystems.getDefault().newWatchService();
+        Paths.get(FileHandler.DATA_FOLDER).register(watchService,
+                StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        Thread thread = new Thread(this::watch, "xypher-data-watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * MODIFIES: this
+     * EFFECTS: Stops watching the folder
+     */
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+    }
+
+    /**
+     * EFFECTS: Collects debounced batches of changed file names and loads them, until the watcher is closed
+     */
+    private void watch() {
+        try {
+            while (true) {
+                Set<String> changed = new LinkedHashSet<>();
+                collect(watchService.take(), changed);
+                WatchKey key;
+                while ((key = watchService.poll(debounce, TimeUnit.MILLISECONDS)) != null) {
+                    collect(key, changed);
+                }
+                load(changed);
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * MODIFIES: changed
+     * EFFECTS: Adds the encoder names of the changed encoder files reported by key, and re-arms key
+     */
+    private void collect(WatchKey key, Set<String> changed) {
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                continue;
+            }
+            String fileName = ((Path) event.context()).getFileName().toString();
+            if (fileName.endsWith(FileHandler.FILE_EXT)) {
+                changed.add(fileName.substring(0, fileName.length() - FileHandler.FILE_EXT.length()));
+            }
+        }
+        key.reset();
+    }
+
+    /**
+     * EFFECTS: Parses the changed files and passes the valid encoders among them to the consumer
+     */
+    private void load(Set<String> changed) {
+        Map<String, Encoder> loaded = new LinkedHashMap<>();
+        for (String name : changed) {
+            try {
+                Encoder encoder = fileHandler.loadEncoder(name);
+                if (isEncoder(name, encoder)) {
+                    loaded.put(name, encoder);
+                } else {
+                    System.out.println("Skipped reloading " + name + ": not an encoder file");
+                }
+            } catch (IOException | ClassNotFoundException | RuntimeException e) {
+                System.out.println("Skipped reloading " + name + ": " + e.getMessage());
+            }
+        }
+        if (!loaded.isEmpty()) {
+            applyExecutor.execute(() -> onChange.accept(loaded));
+        }
+    }
+
+    /**
+     * EFFECTS: Returns true if encoder, parsed from the file for name, is a whole encoder of that name. Json that is
+     *          not an encoder still parses, as a sequence with no name or ciphers, and is rejected here.
+     */
+    private static boolean isEncoder(String name, Encoder encoder) {
+        if (encoder == null || !name.equals(encoder.toString())) {
+            return false;
+        }
+        return !(encoder instanceof CipherSequence) || !((CipherSequence) encoder).getCipherList().contains(null);
+    }
+}
@@ -0,0 +1,78 @@
+package persistence;
+
+import model.Encoder;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Represents a Latin-1 file encoded by one encoder, any slice of which can be decoded on its own.
+ *
+ * Slices are read with positional reads on a {@link FileChannel}, so nothing before the slice is read or decoded,
+ * and one EncodedFile can serve slices to several threads at once. The encoder is asked to decode each slice from its
+ * offset through {@link Encoder#decodeAt}.
+ */
+public class EncodedFile implements Closeable {
+    private final FileChannel channel;
+    private final Encoder encoder;
+
+    /**
+     * MODIFIES: this
+     * EFFECTS: Opens an encoded file for reading
+     *
+     * @param path The encoded file
+     * @param encoder The encoder the file was encoded with
+     * @throws IOException Problem opening the file
+     */
+    public EncodedFile(Path path, Encoder encoder) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.encoder = encoder;
+    }
+
+    /**
+     * @return The length of the file in characters
+     * @throws IOException Problem reading the file size
+     */
+    public long size() throws IOException {
+        return channel.size();
+    }
+
+    /**
+     * REQUIRES: offset >= 0, length >= 0
+     * EFFECTS: Returns the decoding of characters [offset, offset + length) of the file, cut short at the end of the
+     *          file
+     *
+     * @param offset The index of the first character to decode
+     * @param length The number of characters to decode
+     * @return The decoded slice
+     * @throws IOException Problem reading the file
+     * @throws UnsupportedOperationException The encoder cannot decode from an offset
+     */
+    public String decodeSlice(long offset, int length) throws IOException, UnsupportedOperationException {
+        if (offset < 0 || length < 0) {
+            throw new IllegalArgumentException("Invalid slice " + offset + "+" + length);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate((int) Math.max(0, Math.min(length, channel.size() - offset)));
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                break;
+            }
+        }
+        String slice = new String(buffer.array(), 0, buffer.position(), StandardCharsets.ISO_8859_1);
+        return encoder.decodeAt(slice, offset);
+    }
+
+    /**
+     * MODIFIES: this
+     * EFFECTS: Closes the file
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
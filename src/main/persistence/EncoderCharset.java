@@ -0,0 +1,142 @@
+package persistence;
+
+import model.Encoder;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+
+/**
+ * Represents an encoder as a Latin-1 based {@link Charset}, so any JDK reader, writer or channel can encode or decode
+ * with it: writing text through the charset encodes it with the encoder, and reading bytes through it decodes them.
+ *
+ * Both directions run through 256-entry tables built once from the encoder, straight between the JDK's char and byte
+ * buffers. Only position independent encoders can be used, and characters outside Latin-1 are unmappable.
+ */
+public class EncoderCharset extends Charset {
+    public static final String NAME_PREFIX = "x-xypher-";
+
+    private final byte[] encodeTable;
+    private final char[] decodeTable;
+
+    /**
+     * REQUIRES: encoder is position independent
+     * MODIFIES: this
+     * EFFECTS: Creates a charset that encodes and decodes with encoder, named after it
+     *
+     * @param encoder The encoder
+     * @throws IllegalArgumentException The encoder is not position independent
+     */
+    public EncoderCharset(Encoder encoder) throws IllegalArgumentException {
+        super(NAME_PREFIX + encoder.toString().replaceAll("[^A-Za-z0-9.:_+-]", "_"), null);
+        encodeTable = encodeTable(encoder);
+        decodeTable = decodeTable(encoder);
+    }
+
+    /**
+     * REQUIRES: encoder is position independent
+     * EFFECTS: Returns, for each Latin-1 character, the byte it encodes to
+     *
+     * @throws IllegalArgumentException The encoder is not position independent
+     */
+    static byte[] encodeTable(Encoder encoder) throws IllegalArgumentException {
+        requirePositionIndependent(encoder);
+        byte[] table = new byte[256];
+        for (int i = 0; i < 256; i++) {
+            table[i] = (byte) encoder.encodeChar((char) i);
+        }
+        return table;
+    }
+
+    /**
+     * REQUIRES: encoder is position independent
+     * EFFECTS: Returns, for each byte, the Latin-1 character it decodes to
+     *
+     * @throws IllegalArgumentException The encoder is not position independent
+     */
+    static char[] decodeTable(Encoder encoder) throws IllegalArgumentException {
+        requirePositionIndependent(encoder);
+        char[] table = new char[256];
+        for (int i = 0; i < 256; i++) {
+            table[i] = encoder.decodeChar((char) i);
+        }
+        return table;
+    }
+
+    private static void requirePositionIndependent(Encoder encoder) throws IllegalArgumentException {
+        if (!encoder.isPositionIndependent()) {
+            throw new IllegalArgumentException("Encoder cannot be used as a charset: " + encoder);
+        }
+    }
+
+    /**
+     * EFFECTS: Returns true only for this charset
+     */
+    @Override
+    public boolean contains(Charset cs) {
+        return equals(cs);
+    }
+
+    @Override
+    public CharsetDecoder newDecoder() {
+        return new TableDecoder(this);
+    }
+
+    @Override
+    public CharsetEncoder newEncoder() {
+        return new TableEncoder(this);
+    }
+
+    /**
+     * Decodes bytes to chars through the decode table
+     */
+    private class TableDecoder extends CharsetDecoder {
+        TableDecoder(Charset charset) {
+            super(charset, 1, 1);
+        }
+
+        @Override
+        protected CoderResult decodeLoop(ByteBuffer in, CharBuffer out) {
+            while (in.hasRemaining()) {
+                if (!out.hasRemaining()) {
+                    return CoderResult.OVERFLOW;
+                }
+                out.put(decodeTable[in.get() & 0xFF]);
+            }
+            return CoderResult.UNDERFLOW;
+        }
+    }
+
+    /**
+     * Encodes chars to bytes through the encode table
+     */
+    private class TableEncoder extends CharsetEncoder {
+        TableEncoder(Charset charset) {
+            super(charset, 1, 1);
+        }
+
+        @Override
+        protected CoderResult encodeLoop(CharBuffer in, ByteBuffer out) {
+            while (in.hasRemaining()) {
+                char c = in.get(in.position());
+                if (c > 0xFF) {
+                    return CoderResult.unmappableForLength(1);
+                }
+                if (!out.hasRemaining()) {
+                    return CoderResult.OVERFLOW;
+                }
+                in.get();
+                out.put(encodeTable[c]);
+            }
+            return CoderResult.UNDERFLOW;
+        }
+
+        @Override
+        public boolean canEncode(char c) {
+            return c <= 0xFF;
+        }
+    }
+}
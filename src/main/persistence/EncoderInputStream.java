@@ -0,0 +1,47 @@
+package persistence;
+
+import model.Encoder;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Represents a Latin-1 input stream that encodes or decodes the bytes read from another stream on the fly.
+ *
+ * Bytes are transformed in place in the caller's buffer through a 256-entry table, so no Strings are made. Only
+ * position independent encoders can be used.
+ */
+public class EncoderInputStream extends FilterInputStream {
+    private final ByteTable table;
+
+    /**
+     * REQUIRES: encoder is position independent
+     * MODIFIES: this
+     * EFFECTS: Wraps in so that the bytes read from it are encoded or decoded with encoder
+     *
+     * @param in The stream to read from
+     * @param encoder The encoder to apply
+     * @param encoding true to encode, false to decode
+     * @throws IllegalArgumentException The encoder is not position independent
+     */
+    public EncoderInputStream(InputStream in, Encoder encoder, boolean encoding) throws IllegalArgumentException {
+        super(in);
+        table = new ByteTable(encoder, encoding);
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = in.read();
+        return b < 0 ? b : table.apply(b);
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int read = in.read(b, off, len);
+        if (read > 0) {
+            table.apply(b, off, read);
+        }
+        return read;
+    }
+}
@@ -0,0 +1,52 @@
+package persistence;
+
+import model.Encoder;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Represents a Latin-1 output stream that encodes or decodes bytes on the fly before writing them to another stream.
+ *
+ * The caller's bytes are never modified: they are transformed through a 256-entry table into a reused buffer, so no
+ * Strings are made. Only position independent encoders can be used.
+ */
+public class EncoderOutputStream extends FilterOutputStream {
+    private static final int BUFFER_SIZE = 8192;
+
+    private final ByteTable table;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+
+    /**
+     * REQUIRES: encoder is position independent
+     * MODIFIES: this
+     * EFFECTS: Wraps out so that the bytes written to it are encoded or decoded with encoder first
+     *
+     * @param out The stream to write to
+     * @param encoder The encoder to apply
+     * @param encoding true to encode, false to decode
+     * @throws IllegalArgumentException The encoder is not position independent
+     */
+    public EncoderOutputStream(OutputStream out, Encoder encoder, boolean encoding) throws IllegalArgumentException {
+        super(out);
+        table = new ByteTable(encoder, encoding);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        out.write(table.apply(b));
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            int chunk = Math.min(len, buffer.length);
+            System.arraycopy(b, off, buffer, 0, chunk);
+            table.apply(buffer, 0, chunk);
+            out.write(buffer, 0, chunk);
+            off += chunk;
+            len -= chunk;
+        }
+    }
+}
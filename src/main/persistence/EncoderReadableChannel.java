@@ -0,0 +1,54 @@
+package persistence;
+
+import model.Encoder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * Represents a Latin-1 channel that encodes or decodes the bytes read from another channel on the fly.
+ *
+ * Bytes are transformed in place in the caller's buffer, right after the underlying read fills it. Only position
+ * independent encoders can be used.
+ */
+public class EncoderReadableChannel implements ReadableByteChannel {
+    private final ReadableByteChannel channel;
+    private final ByteTable table;
+
+    /**
+     * REQUIRES: encoder is position independent
+     * MODIFIES: this
+     * EFFECTS: Wraps channel so that the bytes read from it are encoded or decoded with encoder
+     *
+     * @param channel The channel to read from
+     * @param encoder The encoder to apply
+     * @param encoding true to encode, false to decode
+     * @throws IllegalArgumentException The encoder is not position independent
+     */
+    public EncoderReadableChannel(ReadableByteChannel channel, Encoder encoder, boolean encoding)
+            throws IllegalArgumentException {
+        this.channel = channel;
+        table = new ByteTable(encoder, encoding);
+    }
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+        int start = dst.position();
+        int read = channel.read(dst);
+        if (read > 0) {
+            table.apply(dst, start, dst.position());
+        }
+        return read;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return channel.isOpen();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
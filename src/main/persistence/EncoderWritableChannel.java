@@ -0,0 +1,65 @@
+package persistence;
+
+import model.Encoder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Represents a Latin-1 channel that encodes or decodes bytes on the fly before writing them to another channel.
+ *
+ * The caller's buffer is never modified: bytes are transformed through a 256-entry table into a reused direct buffer
+ * that is written out. Only position independent encoders can be used.
+ */
+public class EncoderWritableChannel implements WritableByteChannel {
+    private static final int BUFFER_SIZE = 8192;
+
+    private final WritableByteChannel channel;
+    private final ByteTable table;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+    /**
+     * REQUIRES: encoder is position independent
+     * MODIFIES: this
+     * EFFECTS: Wraps channel so that the bytes written to it are encoded or decoded with encoder first
+     *
+     * @param channel The channel to write to
+     * @param encoder The encoder to apply
+     * @param encoding true to encode, false to decode
+     * @throws IllegalArgumentException The encoder is not position independent
+     */
+    public EncoderWritableChannel(WritableByteChannel channel, Encoder encoder, boolean encoding)
+            throws IllegalArgumentException {
+        this.channel = channel;
+        table = new ByteTable(encoder, encoding);
+    }
+
+    /**
+     * MODIFIES: this, src
+     * EFFECTS: Transforms and writes all remaining bytes of src, blocking until they are written
+     */
+    @Override
+    public synchronized int write(ByteBuffer src) throws IOException {
+        int written = src.remaining();
+        while (src.hasRemaining()) {
+            buffer.clear();
+            table.transfer(src, buffer);
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+        return written;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return channel.isOpen();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
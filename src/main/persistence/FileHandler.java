@@ -2,12 +2,22 @@ package persistence;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import metrics.FileIoEvent;
 import model.CipherSequence;
 import model.Encoder;
 import model.ciphers.Cipher;
+import model.ciphers.CipherInterner;
 
 import java.io.*;
 import java.lang.reflect.Type;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Represents the single instance file handler
@@ -20,12 +30,35 @@ public class FileHandler {
      * The file extension to write
      */
     public static final String FILE_EXT = ".json";
+    /**
+     * The json key a sequence saved by reference lists its cipher names under
+     */
+    public static final String CIPHER_REFS_KEY = "cipherRefs";
+
+    /**
+     * How sequences are written to their files
+     */
+    public enum SequenceStorage {
+        /**
+         * Every cipher is written out in full inside the sequence file
+         */
+        INLINE,
+        /**
+         * The sequence file lists cipher names, and each distinct cipher is written once to its own file
+         */
+        REFERENCE
+    }
 
     /**
      * Singleton instance
      */
     private static FileHandler singleton;
     private Gson gson;
+    private volatile SequenceStorage sequenceStorage = SequenceStorage.INLINE;
+    /**
+     * Ciphers already resolved from their own files, by name
+     */
+    private final Map<String, Cipher> cipherCache = new ConcurrentHashMap<>();
 
     /**
      * MODIFIES: this
@@ -54,25 +87,45 @@ public class FileHandler {
 
     /**
      * REQUIRES: A filepath
-     * EFFECTS: Converts a file's contents to a encoder
+     * EFFECTS: Converts a file's contents to a encoder, interning it if it is a cipher
      * @param path The filepath.
      * @return The encoder loaded from file.
      * @throws IOException Problem loading encoder.
      */
     public Encoder loadEncoder(String path) throws IOException, ClassNotFoundException {
         if (path.contains("Cipher")) {
+            Encoder cipher;
             if (path.contains(Cipher.ARG_DELIM)) {
-                return gson.fromJson(readFile(path),
-                        (Type) Class.forName("model.ciphers." + path.substring(0, path.indexOf(Cipher.ARG_DELIM))));
+                cipher = intern(gson.fromJson(readFile(path),
+                        (Type) Class.forName("model.ciphers." + path.substring(0, path.indexOf(Cipher.ARG_DELIM)))));
             } else {
-                return gson.fromJson(readFile(path),
-                        (Type) Class.forName("model.ciphers." + path));
+                cipher = intern(gson.fromJson(readFile(path),
+                        (Type) Class.forName("model.ciphers." + path)));
             }
+            cipherCache.put(path, (Cipher) cipher);
+            return cipher;
         } else {
-            return gson.fromJson(readFile(path), CipherSequence.class);
+            return sequenceFromJson(readFile(path));
         }
     }
 
+    /**
+     * MODIFIES: this
+     * EFFECTS: Sets how sequences are written by saveEncoder and toStoredJson. Sequences are read back in either
+     *          form regardless.
+     * @param sequenceStorage The storage mode
+     */
+    public void setSequenceStorage(SequenceStorage sequenceStorage) {
+        this.sequenceStorage = sequenceStorage;
+    }
+
+    /**
+     * @return How sequences are written
+     */
+    public SequenceStorage getSequenceStorage() {
+        return sequenceStorage;
+    }
+
     /**
      * REQUIRES: The encoder of the same name is not already saved.
      * MODIFIES: filesystem
@@ -81,7 +134,130 @@ public class FileHandler {
      * @throws IOException Problem saving encoder
      */
     public void saveEncoder(Encoder encoder) throws IOException {
-        writeFile(encoder.toString(), gson.toJson(encoder));
+        for (Cipher cipher : unsavedCiphers(encoder).values()) {
+            writeFile(cipher.toString(), toJson(cipher), false);
+        }
+        writeFile(encoder.toString(), toStoredJson(encoder), false);
+    }
+
+    /**
+     * EFFECTS: Serializes an encoder as saveEncoder would write it: sequences saved by reference list only the
+     *          names of their ciphers, everything else is the same as toJson.
+     * @param encoder The encoder to serialize.
+     * @return The json to write to the encoder's file.
+     */
+    public String toStoredJson(Encoder encoder) {
+        if (sequenceStorage == SequenceStorage.INLINE || !(encoder instanceof CipherSequence)) {
+            return toJson(encoder);
+        }
+        JsonObject json = new JsonObject();
+        json.addProperty("name", encoder.toString());
+        JsonArray refs = new JsonArray();
+        for (Cipher cipher : ((CipherSequence) encoder).getCipherList()) {
+            refs.add(cipher.toString());
+        }
+        json.add(CIPHER_REFS_KEY, refs);
+        return gson.toJson(json);
+    }
+
+    /**
+     * EFFECTS: Returns the distinct ciphers, by name, whose own files a saved encoder refers to but which are not
+     *          saved yet. Only sequences saved by reference refer to any, and a cipher's name fixes its key, so an
+     *          existing cipher file never needs rewriting.
+     * @param encoder The encoder to be saved.
+     * @return The unsaved referenced ciphers, in first-use order.
+     */
+    public Map<String, Cipher> unsavedCiphers(Encoder encoder) {
+        Map<String, Cipher> ciphers = new LinkedHashMap<>();
+        if (sequenceStorage == SequenceStorage.REFERENCE && encoder instanceof CipherSequence) {
+            for (Cipher cipher : ((CipherSequence) encoder).getCipherList()) {
+                if (!new File(DATA_FOLDER + cipher.toString() + FILE_EXT).exists()) {
+                    ciphers.putIfAbsent(cipher.toString(), cipher);
+                }
+            }
+        }
+        return ciphers;
+    }
+
+    /**
+     * EFFECTS: Serializes an encoder to the json text that saveEncoder would write.
+     * @param encoder The encoder to serialize.
+     * @return The json representation of the encoder.
+     */
+    public String toJson(Encoder encoder) {
+        return gson.toJson(encoder);
+    }
+
+    /**
+     * REQUIRES: json was produced by toJson for an encoder of class className.
+     * EFFECTS: Deserializes an encoder from json text, interning it if it is a cipher.
+     * @param json The serialized encoder.
+     * @param className The fully qualified class name of the encoder.
+     * @return The deserialized encoder.
+     * @throws ClassNotFoundException className is not a known class.
+     */
+    public Encoder fromJson(String json, String className) throws ClassNotFoundException {
+        if (className.equals(CipherSequence.class.getName())) {
+            return sequenceFromJson(json);
+        }
+        return intern(gson.fromJson(json, (Type) Class.forName(className)));
+    }
+
+    /**
+     * EFFECTS: Deserializes a sequence saved either inline or by reference. Referenced ciphers are loaded from their
+     *          own files once and then shared from a cache.
+     * @throws JsonParseException A referenced cipher could not be loaded.
+     */
+    private CipherSequence sequenceFromJson(String json) {
+        JsonElement element = JsonParser.parseString(json);
+        if (!element.isJsonObject() || !element.getAsJsonObject().has(CIPHER_REFS_KEY)) {
+            return gson.fromJson(element, CipherSequence.class);
+        }
+        JsonObject object = element.getAsJsonObject();
+        CipherSequence sequence = new CipherSequence(object.get("name").getAsString());
+        for (JsonElement ref : object.getAsJsonArray(CIPHER_REFS_KEY)) {
+            sequence.pushCipher(resolveCipher(ref.getAsString()));
+        }
+        return sequence;
+    }
+
+    /**
+     * EFFECTS: Returns the cipher called name, loading it from its file the first time it is asked for.
+     * @throws JsonParseException The cipher could not be loaded.
+     */
+    private Cipher resolveCipher(String name) {
+        Cipher cipher = cipherCache.get(name);
+        if (cipher != null) {
+            return cipher;
+        }
+        try {
+            return (Cipher) loadEncoder(name);
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
+            throw new JsonParseException("Cannot resolve cipher " + name + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * EFFECTS: Returns the canonical instance of encoder if it is a cipher, otherwise encoder itself.
+     */
+    private static Encoder intern(Encoder encoder) {
+        if (encoder instanceof Cipher) {
+            return CipherInterner.getInstance().intern((Cipher) encoder);
+        }
+        return encoder;
+    }
+
+    /**
+     * REQUIRES: json was produced by toJson for an encoder called name.
+     * MODIFIES: filesystem
+     * EFFECTS: Writes already serialized encoder json to its file, optionally forcing it to the storage device.
+     * @param name The name of the encoder.
+     * @param json The serialized encoder.
+     * @param force Whether to force the written bytes to disk before returning.
+     * @throws IOException Problem saving encoder
+     */
+    public void writeEncoder(String name, String json, boolean force) throws IOException {
+        writeFile(name, json, force);
     }
 
     /**
@@ -90,12 +266,22 @@ public class FileHandler {
      * EFFECTS: Writes some text to a file.
      * @param fileName The filename.
      * @param text The text to save.
+     * @param force Whether to force the file contents to the storage device.
      * @throws IOException Problem writing to file.
      */
-    private void writeFile(String fileName, String text) throws IOException {
-        FileWriter fileWriter = new FileWriter(DATA_FOLDER + fileName + FILE_EXT);
-        fileWriter.write(text);
-        fileWriter.close();
+    private void writeFile(String fileName, String text, boolean force) throws IOException {
+        FileIoEvent event = new FileIoEvent();
+        event.begin();
+        String path = DATA_FOLDER + fileName + FILE_EXT;
+        try (FileOutputStream outputStream = new FileOutputStream(path)) {
+            Writer writer = new OutputStreamWriter(outputStream);
+            writer.write(text);
+            writer.flush();
+            if (force) {
+                outputStream.getChannel().force(true);
+            }
+            event.commit(path, "save", outputStream.getChannel().position());
+        }
     }
 
     /**
@@ -106,16 +292,21 @@ public class FileHandler {
      * @throws IOException Problem reading from file.
      */
     private String readFile(String fileName) throws IOException {
-        BufferedReader bufferedReader = new BufferedReader(new FileReader(DATA_FOLDER + fileName + FILE_EXT));
+        FileIoEvent event = new FileIoEvent();
+        event.begin();
+        String path = DATA_FOLDER + fileName + FILE_EXT;
         StringBuilder result = new StringBuilder();
-        String line;
-        while (true) {
-            line = bufferedReader.readLine();
-            if (line == null) {
-                break;
+        try (BufferedReader bufferedReader = new BufferedReader(new FileReader(path))) {
+            String line;
+            while (true) {
+                line = bufferedReader.readLine();
+                if (line == null) {
+                    break;
+                }
+                result.append(line);
             }
-            result.append(line);
         }
+        event.commit(path, "load", result.length());
         return result.toString();
     }
 }
@@ -0,0 +1,71 @@
+package persistence;
+
+import model.Encoder;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.LongConsumer;
+
+/**
+ * Represents a streaming encode or decode of one Latin-1 text file into another.
+ *
+ * The source is processed {@value #CHUNK_SIZE} characters at a time, so memory use does not depend on file size.
+ * Only position independent encoders can be streamed this way.
+ */
+public class FileTranscoder {
+    public static final int CHUNK_SIZE = 64 * 1024;
+
+    private final Encoder encoder;
+    private final boolean encoding;
+
+    /**
+     * REQUIRES: encoder is position independent
+     * MODIFIES: this
+     * EFFECTS: Creates a transcoder for an encoder and direction
+     *
+     * @param encoder The encoder to use
+     * @param encoding true to encode, false to decode
+     * @throws IllegalArgumentException The encoder is not position independent
+     */
+    public FileTranscoder(Encoder encoder, boolean encoding) throws IllegalArgumentException {
+        if (!encoder.isPositionIndependent()) {
+            throw new IllegalArgumentException("Encoder cannot be streamed: " + encoder);
+        }
+        this.encoder = encoder;
+        this.encoding = encoding;
+    }
+
+    /**
+     * MODIFIES: filesystem
+     * EFFECTS: Streams source through the encoder into target, reporting the number of characters done after each
+     *          chunk. Stops if the calling thread is interrupted.
+     *
+     * @param source The file to read
+     * @param target The file to write, replaced if it exists
+     * @param progress Receives the number of characters transcoded so far
+     * @throws IOException Problem reading or writing, or the thread was interrupted
+     */
+    public void transcode(Path source, Path target, LongConsumer progress) throws IOException {
+        char[] buffer = new char[CHUNK_SIZE];
+        long done = 0;
+        Charset cs = StandardCharsets.ISO_8859_1;
+        try (Reader in = Files.newBufferedReader(source, cs); Writer out = Files.newBufferedWriter(target, cs)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedIOException("Transcoding cancelled");
+                }
+                String chunk = new String(buffer, 0, read);
+                out.write(encoding ? encoder.encode(chunk) : encoder.decode(chunk));
+                done += read;
+                progress.accept(done);
+            }
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package persistence;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Represents a read-only, memory-mapped view of a Latin-1 text file as a {@link CharSequence}.
+ *
+ * The file is never read into the heap as a whole: characters are decoded from the mapping as they are asked for,
+ * and subSequence copies only the requested window. Files are limited to {@link Integer#MAX_VALUE} bytes.
+ */
+public class MappedTextFile implements CharSequence {
+    private final Path path;
+    private final MappedByteBuffer buffer;
+    private final int length;
+
+    /**
+     * MODIFIES: this
+     * EFFECTS: Maps the file at path
+     *
+     * @param path The file to map
+     * @throws IOException Problem mapping the file, or the file is too large
+     */
+    public MappedTextFile(Path path) throws IOException {
+        this.path = path;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("File too large to map: " + path);
+            }
+            length = (int) channel.size();
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+        }
+    }
+
+    /**
+     * @return The path of the mapped file
+     */
+    public Path getPath() {
+        return path;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        return (char) (buffer.get(index) & 0xFF);
+    }
+
+    /**
+     * REQUIRES: 0 <= start <= end <= length()
+     * EFFECTS: Returns a copy of the characters in [start, end)
+     */
+    @Override
+    public String subSequence(int start, int end) {
+        if (start < 0 || end > length || start > end) {
+            throw new IndexOutOfBoundsException("Invalid range [" + start + ", " + end + ")");
+        }
+        byte[] bytes = new byte[end - start];
+        ByteBuffer window = buffer.duplicate();
+        window.position(start);
+        window.get(bytes);
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * EFFECTS: Returns the whole file as a String
+     */
+    @Override
+    public String toString() {
+        return subSequence(0, length);
+    }
+}
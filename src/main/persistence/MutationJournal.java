@@ -0,0 +1,498 @@
+package persistence;
+
+import model.CipherSequence;
+import model.Encoder;
+import model.ciphers.Cipher;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Represents an append-only journal of encoder registry mutations, with periodic snapshots.
+ *
+ * Every mutation is appended as a compact binary record (sequence number, type, fields) framed by its length and
+ * CRC32. Records are group committed: appends go to an in-memory batch, and a single background thread writes and
+ * fsyncs whole batches, so records that arrive while a sync is in progress share the next one. Once enough records
+ * have accumulated, the registry is written to a snapshot and the journal is truncated, so recovery only replays
+ * the records that follow the snapshot.
+ */
+public class MutationJournal implements Closeable {
+    public static final String JOURNAL_FILE = "registry.journal";
+    public static final String SNAPSHOT_FILE = "registry.snapshot";
+    /**
+     * Default number of records between snapshots
+     */
+    public static final int DEFAULT_SNAPSHOT_INTERVAL = 10000;
+
+    private static final int SNAPSHOT_MAGIC = 0x58595053;
+    private static final int MAX_RECORD_LENGTH = 64 * 1024 * 1024;
+    private static final byte PUT = 1;
+    private static final byte DELETE = 2;
+    private static final byte PUSH = 3;
+    private static final byte INSERT = 4;
+    private static final byte REMOVE = 5;
+
+    /**
+     * Represents the type-specific fields of a record
+     */
+    private interface RecordBody {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    /**
+     * A group of records committed by a single sync
+     */
+    private static class Batch {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+        private boolean snapshotted;
+    }
+
+    private final Path journalPath;
+    private final Path snapshotPath;
+    private final FileHandler fileHandler;
+    private final int snapshotInterval;
+    private final ExecutorService committer;
+    private FileChannel channel;
+    private Batch batch;
+    private boolean commitScheduled;
+    private long nextSequence;
+    private int recordsSinceSnapshot;
+
+    /**
+     * REQUIRES: snapshotInterval > 0
+     * MODIFIES: this
+     * EFFECTS: Creates a journal stored in folder. recover() must be called before recording mutations.
+     *
+     * @param folder The folder holding the journal and snapshot files
+     * @param fileHandler The file handler used to (de)serialize encoders
+     * @param snapshotInterval The number of records between snapshots
+     */
+    public MutationJournal(String folder, FileHandler fileHandler, int snapshotInterval) {
+        this.journalPath = Paths.get(folder, JOURNAL_FILE);
+        this.snapshotPath = Paths.get(folder, SNAPSHOT_FILE);
+        this.fileHandler = fileHandler;
+        this.snapshotInterval = snapshotInterval;
+        batch = new Batch();
+        nextSequence = 1;
+        committer = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "xypher-journal");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * MODIFIES: this, filesystem
+     * EFFECTS: Rebuilds the registry from the snapshot and the journal records that follow it, drops any torn
+     * record at the end of the journal, and opens the journal for appending.
+     *
+     * @return The recovered registry, keyed by encoder name
+     * @throws IOException Problem reading the snapshot or journal
+     */
+    public synchronized Map<String, Encoder> recover() throws IOException {
+        LinkedHashMap<String, Encoder> state = new LinkedHashMap<>();
+        long snapshotSequence = readSnapshot(state);
+        nextSequence = Math.max(nextSequence, snapshotSequence + 1);
+        long validLength = replay(state, snapshotSequence);
+        channel = FileChannel.open(journalPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        channel.truncate(validLength);
+        channel.position(validLength);
+        return state;
+    }
+
+    /**
+     * MODIFIES: this
+     * EFFECTS: Records that an encoder was added or replaced under a registry key, which need not be its name.
+     *
+     * @param name The registry key the encoder is now stored under
+     * @param encoder The encoder now stored under name
+     * @return A future completed once the record is durable
+     */
+    public CompletableFuture<Void> recordPut(String name, Encoder encoder) {
+        return append(PUT, out -> {
+            writeString(out, name);
+            writeEncoder(out, encoder);
+        });
+    }
+
+    /**
+     * MODIFIES: this
+     * EFFECTS: Records that an encoder was deleted.
+     *
+     * @param name The name of the deleted encoder
+     * @return A future completed once the record is durable
+     */
+    public CompletableFuture<Void> recordDelete(String name) {
+        return append(DELETE, out -> writeString(out, name));
+    }
+
+    /**
+     * MODIFIES: this
+     * EFFECTS: Records that a cipher was pushed onto the end of a sequence.
+     *
+     * @param sequenceName The name of the sequence
+     * @param cipher The pushed cipher
+     * @return A future completed once the record is durable
+     */
+    public CompletableFuture<Void> recordPush(String sequenceName, Cipher cipher) {
+        return append(PUSH, out -> {
+            writeString(out, sequenceName);
+            writeEncoder(out, cipher);
+        });
+    }
+
+    /**
+     * MODIFIES: this
+     * EFFECTS: Records that a cipher was inserted into a sequence.
+     *
+     * @param sequenceName The name of the sequence
+     * @param cipher The inserted cipher
+     * @param index The index it was inserted at
+     * @return A future completed once the record is durable
+     */
+    public CompletableFuture<Void> recordInsert(String sequenceName, Cipher cipher, int index) {
+        return append(INSERT, out -> {
+            writeString(out, sequenceName);
+            out.writeInt(index);
+            writeEncoder(out, cipher);
+        });
+    }
+
+    /**
+     * MODIFIES: this
+     * EFFECTS: Records that a cipher was removed from a sequence.
+     *
+     * @param sequenceName The name of the sequence
+     * @param index The index of the removed cipher
+     * @return A future completed once the record is durable
+     */
+    public CompletableFuture<Void> recordRemove(String sequenceName, int index) {
+        return append(REMOVE, out -> {
+            writeString(out, sequenceName);
+            out.writeInt(index);
+        });
+    }
+
+    /**
+     * @return true if enough records have accumulated since the last snapshot that a new one should be taken
+     */
+    public synchronized boolean needsSnapshot() {
+        return recordsSinceSnapshot >= snapshotInterval;
+    }
+
+    /**
+     * REQUIRES: state reflects every mutation recorded so far, and no records are appended concurrently
+     * MODIFIES: this, filesystem
+     * EFFECTS: Serializes state on the calling thread, then writes it as the new snapshot and truncates the journal
+     * in the background.
+     *
+     * @param state The current registry
+     * @return A future completed once the snapshot is durable
+     */
+    public CompletableFuture<Void> snapshot(Map<String, ? extends Encoder> state) {
+        Batch covered;
+        byte[] image;
+        synchronized (this) {
+            image = encodeSnapshot(state, nextSequence - 1);
+            covered = batch;
+            covered.snapshotted = true;
+            batch = new Batch();
+            commitScheduled = false;
+            recordsSinceSnapshot = 0;
+        }
+        committer.execute(() -> writeSnapshot(image, covered));
+        return covered.done;
+    }
+
+    /**
+     * MODIFIES: this, filesystem
+     * EFFECTS: Commits any outstanding records and closes the journal
+     */
+    @Override
+    public void close() {
+        committer.shutdown();
+        try {
+            committer.awaitTermination(1, TimeUnit.MINUTES);
+            if (channel != null) {
+                channel.close();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            System.out.println("Error closing journal: " + e.getMessage());
+        }
+    }
+
+    /**
+     * MODIFIES: this
+     * EFFECTS: Frames a record into the current batch and schedules a commit if one is not already pending
+     */
+    private synchronized CompletableFuture<Void> append(byte type, RecordBody body) {
+        if (channel == null) {
+            throw new IllegalStateException("Journal has not been recovered");
+        }
+        try {
+            ByteArrayOutputStream payload = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(payload);
+            out.writeLong(nextSequence++);
+            out.writeByte(type);
+            body.write(out);
+            writeFrame(new DataOutputStream(batch.bytes), payload.toByteArray());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        recordsSinceSnapshot++;
+        if (!commitScheduled) {
+            commitScheduled = true;
+            Batch target = batch;
+            committer.execute(() -> commit(target));
+        }
+        return batch.done;
+    }
+
+    /**
+     * MODIFIES: this, filesystem
+     * EFFECTS: Writes and syncs a batch, unless a snapshot already covers it
+     */
+    private void commit(Batch target) {
+        synchronized (this) {
+            if (target.snapshotted) {
+                return;
+            }
+            batch = new Batch();
+            commitScheduled = false;
+        }
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(target.bytes.toByteArray());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+            target.done.complete(null);
+        } catch (IOException e) {
+            target.done.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * MODIFIES: filesystem
+     * EFFECTS: Atomically replaces the snapshot file, then empties the journal
+     */
+    private void writeSnapshot(byte[] image, Batch covered) {
+        Path temp = snapshotPath.resolveSibling(SNAPSHOT_FILE + ".tmp");
+        try {
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer buffer = ByteBuffer.wrap(image);
+                while (buffer.hasRemaining()) {
+                    out.write(buffer);
+                }
+                out.force(true);
+            }
+            Files.move(temp, snapshotPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            channel.truncate(0);
+            channel.force(true);
+            covered.done.complete(null);
+        } catch (IOException e) {
+            covered.done.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * EFFECTS: Serializes the registry and the sequence number of the last record it reflects
+     */
+    private byte[] encodeSnapshot(Map<String, ? extends Encoder> state, long lastSequence) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeLong(lastSequence);
+            out.writeInt(state.size());
+            for (Map.Entry<String, ? extends Encoder> entry : state.entrySet()) {
+                writeString(out, entry.getKey());
+                writeEncoder(out, entry.getValue());
+            }
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * MODIFIES: state
+     * EFFECTS: Loads the snapshot into state, if there is one
+     *
+     * @return The sequence number of the last record reflected in the snapshot, or 0 if there is none
+     */
+    private long readSnapshot(Map<String, Encoder> state) throws IOException {
+        if (!Files.exists(snapshotPath)) {
+            return 0;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshotPath)))) {
+            if (in.readInt() != SNAPSHOT_MAGIC) {
+                throw new IOException("Invalid snapshot file");
+            }
+            long lastSequence = in.readLong();
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                state.put(readString(in), readEncoder(in));
+            }
+            return lastSequence;
+        }
+    }
+
+    /**
+     * MODIFIES: this, state
+     * EFFECTS: Applies the journal records that follow the snapshot, stopping at the first torn or corrupt record
+     *
+     * @return The length of the valid prefix of the journal
+     */
+    private long replay(Map<String, Encoder> state, long snapshotSequence) throws IOException {
+        if (!Files.exists(journalPath)) {
+            return 0;
+        }
+        long validLength = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(journalPath)))) {
+            byte[] payload;
+            while ((payload = readFrame(in)) != null) {
+                DataInputStream record = new DataInputStream(new ByteArrayInputStream(payload));
+                long sequence = record.readLong();
+                if (sequence > snapshotSequence) {
+                    apply(record, record.readByte(), state);
+                    recordsSinceSnapshot++;
+                }
+                nextSequence = Math.max(nextSequence, sequence + 1);
+                validLength += 8 + payload.length;
+            }
+        }
+        return validLength;
+    }
+
+    /**
+     * MODIFIES: state
+     * EFFECTS: Applies a single record to state
+     */
+    private void apply(DataInputStream in, byte type, Map<String, Encoder> state) throws IOException {
+        String name = readString(in);
+        switch (type) {
+            case PUT:
+                state.put(name, readEncoder(in));
+                break;
+            case DELETE:
+                state.remove(name);
+                break;
+            case PUSH:
+                sequenceOf(state, name).pushCipher((Cipher) readEncoder(in));
+                break;
+            case INSERT:
+                int index = in.readInt();
+                sequenceOf(state, name).addCipher((Cipher) readEncoder(in), index);
+                break;
+            case REMOVE:
+                sequenceOf(state, name).removeCipher(in.readInt());
+                break;
+            default:
+                throw new IOException("Unknown journal record type " + type);
+        }
+    }
+
+    /**
+     * EFFECTS: Returns the named sequence in state
+     */
+    private static CipherSequence sequenceOf(Map<String, Encoder> state, String name) throws IOException {
+        if (state.get(name) instanceof CipherSequence) {
+            return (CipherSequence) state.get(name);
+        } else {
+            throw new IOException("Journal references missing sequence " + name);
+        }
+    }
+
+    /**
+     * EFFECTS: Reads the payload of the next framed record
+     *
+     * @return The payload, or null at the end of the journal or at a torn or corrupt record
+     */
+    private static byte[] readFrame(DataInputStream in) throws IOException {
+        try {
+            int length = in.readInt();
+            int checksum = in.readInt();
+            if (length < 0 || length > MAX_RECORD_LENGTH) {
+                return null;
+            }
+            byte[] payload = new byte[length];
+            in.readFully(payload);
+            CRC32 crc = new CRC32();
+            crc.update(payload, 0, length);
+            return (int) crc.getValue() == checksum ? payload : null;
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+
+    /**
+     * MODIFIES: out
+     * EFFECTS: Writes a record payload prefixed by its length and checksum
+     */
+    private static void writeFrame(DataOutputStream out, byte[] payload) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(payload, 0, payload.length);
+        out.writeInt(payload.length);
+        out.writeInt((int) crc.getValue());
+        out.write(payload);
+    }
+
+    /**
+     * MODIFIES: out
+     * EFFECTS: Writes an encoder as its class name followed by its json
+     */
+    private void writeEncoder(DataOutputStream out, Encoder encoder) throws IOException {
+        writeString(out, encoder.getClass().getName());
+        writeString(out, fileHandler.toJson(encoder));
+    }
+
+    /**
+     * EFFECTS: Reads an encoder written by writeEncoder
+     */
+    private Encoder readEncoder(DataInputStream in) throws IOException {
+        String className = readString(in);
+        try {
+            return fileHandler.fromJson(readString(in), className);
+        } catch (ClassNotFoundException e) {
+            throw new IOException("Unknown encoder class " + className, e);
+        }
+    }
+
+    /**
+     * MODIFIES: out
+     * EFFECTS: Writes a length-prefixed UTF-8 string, which unlike writeUTF has no 64KB limit
+     */
+    private static void writeString(DataOutputStream out, String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * EFFECTS: Reads a string written by writeString
+     */
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,237 @@
+package persistence;
+
+import model.CipherSequence;
+import model.Encoder;
+import model.ciphers.Cipher;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Represents an on-disk cache of encoded and decoded files, addressed by what produced them.
+ *
+ * A result is stored under the SHA-256 of the encoder's canonical key (its name, plus the class and key parameters
+ * of every cipher in it), the direction, and the SHA-256 of the input's content. An unchanged input run through an
+ * unchanged encoder therefore finds its earlier output, whatever it is called or wherever it lives, while editing a
+ * sequence or a file gives a new key. The cache is bounded in size; when it grows past the bound, the results used
+ * least recently are deleted first. Use times are kept in the files' modification times, so the order survives
+ * restarts.
+ */
+public class ResultCache {
+    public static final String DEFAULT_FOLDER = FileHandler.DATA_FOLDER + "cache/";
+    public static final long DEFAULT_MAX_BYTES = 256L * 1024 * 1024;
+    private static final String PART_EXT = ".part";
+
+    private final Path folder;
+    private final long maxBytes;
+    private final LinkedHashMap<String, Long> sizes = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    /**
+     * REQUIRES: maxBytes >= 0
+     * MODIFIES: this, filesystem
+     * EFFECTS: Opens the cache in folder, creating it if needed, and indexes the results already there from least
+     *          to most recently used
+     *
+     * @param folder The folder holding the results
+     * @param maxBytes The most bytes of results kept
+     * @throws IOException Problem creating or listing the folder
+     */
+    public ResultCache(Path folder, long maxBytes) throws IOException {
+        this.folder = folder;
+        this.maxBytes = maxBytes;
+        Files.createDirectories(folder);
+        for (Path blob : listByUse(folder)) {
+            if (blob.getFileName().toString().endsWith(PART_EXT)) {
+                Files.deleteIfExists(blob);
+            } else {
+                long size = Files.size(blob);
+                sizes.put(blob.getFileName().toString(), size);
+                totalBytes += size;
+            }
+        }
+        evict();
+    }
+
+    /**
+     * MODIFIES: filesystem
+     * EFFECTS: Opens the cache in the data folder with the default size bound
+     *
+     * @return The default cache
+     * @throws IOException Problem creating or listing the folder
+     */
+    public static ResultCache openDefault() throws IOException {
+        return new ResultCache(Paths.get(DEFAULT_FOLDER), DEFAULT_MAX_BYTES);
+    }
+
+    /**
+     * EFFECTS: Returns the key for the result of running the contents of input through encoder in one direction
+     *
+     * @param encoder The encoder
+     * @param encoding true to encode, false to decode
+     * @param input The input file
+     * @return The key, as hex
+     * @throws IOException Problem reading the input
+     */
+    public static String keyOf(Encoder encoder, boolean encoding, Path input) throws IOException {
+        MessageDigest content = sha256();
+        byte[] buffer = new byte[FileTranscoder.CHUNK_SIZE];
+        try (InputStream in = Files.newInputStream(input)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                content.update(buffer, 0, read);
+            }
+        }
+        MessageDigest key = sha256();
+        key.update((canonicalKey(encoder) + "\n" + (encoding ? "encode" : "decode") + "\n")
+                .getBytes(StandardCharsets.UTF_8));
+        key.update(content.digest());
+        return toHex(key.digest());
+    }
+
+    /**
+     * EFFECTS: Returns the name of encoder, followed by the class and key parameters of each cipher it applies
+     */
+    static String canonicalKey(Encoder encoder) {
+        StringBuilder key = new StringBuilder(encoder.toString());
+        List<Cipher> ciphers = new ArrayList<>();
+        if (encoder instanceof CipherSequence) {
+            ciphers.addAll(((CipherSequence) encoder).getCipherList());
+        } else if (encoder instanceof Cipher) {
+            ciphers.add((Cipher) encoder);
+        }
+        for (Cipher cipher : ciphers) {
+            key.append('|').append(cipher.getClass().getName()).append(Arrays.toString(cipher.keyParameters()));
+        }
+        return key.toString();
+    }
+
+    /**
+     * MODIFIES: this, filesystem
+     * EFFECTS: Copies the result stored under key to target and marks it as just used, returning true, or returns
+     *          false if there is no such result
+     *
+     * @param key The key of the result
+     * @param target The file to write, replaced if it exists
+     * @return true if the result was found
+     * @throws IOException Problem copying the result
+     */
+    public boolean copyTo(String key, Path target) throws IOException {
+        Path blob = folder.resolve(key);
+        synchronized (this) {
+            if (sizes.get(key) == null) {
+                return false;
+            }
+            Files.setLastModifiedTime(blob, FileTime.fromMillis(System.currentTimeMillis()));
+        }
+        try {
+            Files.copy(blob, target, StandardCopyOption.REPLACE_EXISTING);
+            return true;
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+    }
+
+    /**
+     * MODIFIES: this, filesystem
+     * EFFECTS: Stores a copy of output as the result for key, then deletes the least recently used results until
+     *          the cache is within its bound
+     *
+     * @param key The key of the result
+     * @param output The result to store
+     * @throws IOException Problem copying the result
+     */
+    public void put(String key, Path output) throws IOException {
+        Path part = Files.createTempFile(folder, key, PART_EXT);
+        try {
+            Files.copy(output, part, StandardCopyOption.REPLACE_EXISTING);
+            long size = Files.size(part);
+            synchronized (this) {
+                Files.move(part, folder.resolve(key), StandardCopyOption.ATOMIC_MOVE,
+                        StandardCopyOption.REPLACE_EXISTING);
+                Long replaced = sizes.put(key, size);
+                totalBytes += size - (replaced == null ? 0 : replaced);
+                evict();
+            }
+        } finally {
+            Files.deleteIfExists(part);
+        }
+    }
+
+    /**
+     * @return The number of results stored
+     */
+    public synchronized int count() {
+        return sizes.size();
+    }
+
+    /**
+     * @return The total size of the results stored, in bytes
+     */
+    public synchronized long size() {
+        return totalBytes;
+    }
+
+    /**
+     * MODIFIES: this, filesystem
+     * EFFECTS: Deletes results, least recently used first, until the total size is within the bound
+     */
+    private synchronized void evict() throws IOException {
+        Iterator<Map.Entry<String, Long>> eldest = sizes.entrySet().iterator();
+        while (totalBytes > maxBytes && eldest.hasNext()) {
+            Map.Entry<String, Long> entry = eldest.next();
+            Files.deleteIfExists(folder.resolve(entry.getKey()));
+            totalBytes -= entry.getValue();
+            eldest.remove();
+        }
+    }
+
+    /**
+     * EFFECTS: Returns the files in folder, least recently modified first
+     */
+    private static List<Path> listByUse(Path folder) throws IOException {
+        try (Stream<Path> files = Files.list(folder)) {
+            return files.filter(Files::isRegularFile)
+                    .sorted(Comparator.comparing(ResultCache::modifiedTime))
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static long modifiedTime(Path path) {
+        return path.toFile().lastModified();
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+}
@@ -1,6 +1,8 @@
 package persistence;
 
 import com.google.gson.*;
+import model.ciphers.Cipher;
+import model.ciphers.CipherInterner;
 
 import java.lang.reflect.Type;
 
@@ -13,7 +15,8 @@ public class SerializationHandler implements JsonDeserializer<Object>, JsonSeria
     private static final String CLASS_TYPE_META_KEY = "CLASS_META_KEY";
 
     /**
-     * EFFECTS: Overrides default deserializer to take into account object type tag
+     * EFFECTS: Overrides default deserializer to take into account object type tag. Ciphers are interned, so every
+     *          sequence that references an equal cipher shares one instance.
      */
     @Override
     public Object deserialize(JsonElement jsonElement, Type type, JsonDeserializationContext jsonDeserializationContext)
@@ -22,7 +25,11 @@ public class SerializationHandler implements JsonDeserializer<Object>, JsonSeria
         String className = jsonObj.get(CLASS_TYPE_META_KEY).getAsString();
         try {
             Class<?> clz = Class.forName(className);
-            return jsonDeserializationContext.deserialize(jsonElement, clz);
+            Object result = jsonDeserializationContext.deserialize(jsonElement, clz);
+            if (result instanceof Cipher) {
+                return CipherInterner.getInstance().intern((Cipher) result);
+            }
+            return result;
         } catch (ClassNotFoundException e) {
             throw new JsonParseException(e);
         }
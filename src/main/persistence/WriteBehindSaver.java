@@ -0,0 +1,167 @@
+package persistence;
+
+import model.Encoder;
+import model.ciphers.Cipher;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Represents a write-behind queue in front of the {@link FileHandler}.
+ *
+ * Encoders are serialized on the calling thread, so later edits cannot race the writer, but the file I/O happens on
+ * a single background thread. Repeated saves of the same encoder before a flush are coalesced into one write of the
+ * latest state, and every caller of the coalesced saves receives the same future.
+ */
+public class WriteBehindSaver implements Closeable {
+    /**
+     * Default time between background flushes, in milliseconds
+     */
+    public static final long DEFAULT_FLUSH_INTERVAL = 200;
+
+    /**
+     * Whether a flushed file is forced to the storage device before its future completes
+     */
+    public enum Durability {
+        FORCE,
+        NO_FORCE
+    }
+
+    /**
+     * A save waiting for the next flush
+     */
+    private static class PendingSave {
+        private String json;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+    }
+
+    private final FileHandler fileHandler;
+    private final Durability durability;
+    private final ScheduledExecutorService flusher;
+    private LinkedHashMap<String, PendingSave> pending;
+    private boolean closed;
+
+    /**
+     * REQUIRES: flushInterval > 0
+     * MODIFIES: this
+     * EFFECTS: Creates a saver that flushes queued saves every flushInterval milliseconds
+     *
+     * @param fileHandler The file handler used to write encoders
+     * @param flushInterval The time between flushes, in milliseconds
+     * @param durability Whether flushed files are forced to disk
+     */
+    public WriteBehindSaver(FileHandler fileHandler, long flushInterval, Durability durability) {
+        this.fileHandler = fileHandler;
+        this.durability = durability;
+        pending = new LinkedHashMap<>();
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "xypher-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flush, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * MODIFIES: this
+     * EFFECTS: Queues an encoder to be written on the next flush, replacing any queued save of the same name. A
+     *          sequence saved by reference also queues those of its ciphers not saved yet, ahead of the sequence
+     *          itself, as FileHandler.saveEncoder writes them.
+     *
+     * @param encoder The encoder to save
+     * @return A future completed once the encoder is written (and forced, if configured)
+     * @throws IllegalStateException The saver is closed
+     */
+    public CompletableFuture<Void> save(Encoder encoder) throws IllegalStateException {
+        String json = fileHandler.toStoredJson(encoder);
+        Map<String, Cipher> referenced = fileHandler.unsavedCiphers(encoder);
+        synchronized (this) {
+            if (closed) {
+                throw new IllegalStateException("Saver is closed");
+            }
+            for (Map.Entry<String, Cipher> entry : referenced.entrySet()) {
+                queue(entry.getKey(), fileHandler.toJson(entry.getValue()));
+            }
+            return queue(encoder.toString(), json);
+        }
+    }
+
+    /**
+     * REQUIRES: Called while holding the lock on this
+     * MODIFIES: this
+     * EFFECTS: Queues json to be written to the file for name, replacing any queued json for the same name
+     */
+    private CompletableFuture<Void> queue(String name, String json) {
+        PendingSave save = pending.get(name);
+        if (save == null) {
+            save = new PendingSave();
+            pending.put(name, save);
+        }
+        save.json = json;
+        return save.future;
+    }
+
+    /**
+     * EFFECTS: Requests an immediate flush of all queued saves
+     *
+     * @return A future completed once the flush has run
+     */
+    public CompletableFuture<Void> flushNow() {
+        return CompletableFuture.runAsync(this::flush, flusher);
+    }
+
+    /**
+     * @return The number of distinct encoders waiting to be written
+     */
+    public synchronized int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * MODIFIES: this, filesystem
+     * EFFECTS: Stops the background thread and writes whatever is still queued on the calling thread
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+        }
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    /**
+     * MODIFIES: this, filesystem
+     * EFFECTS: Writes the current batch of queued saves and completes their futures
+     */
+    private void flush() {
+        LinkedHashMap<String, PendingSave> batch;
+        synchronized (this) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = pending;
+            pending = new LinkedHashMap<>();
+        }
+        for (Map.Entry<String, PendingSave> entry : batch.entrySet()) {
+            PendingSave save = entry.getValue();
+            try {
+                fileHandler.writeEncoder(entry.getKey(), save.json, durability == Durability.FORCE);
+                save.future.complete(null);
+            } catch (IOException | RuntimeException e) {
+                save.future.completeExceptionally(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package pipeline;
+
+/**
+ * Represents the reactive-streams interfaces for demand-driven pipelines.
+ *
+ * These mirror java.util.concurrent.Flow, which this project cannot use while it targets Java 8; the names, methods
+ * and rules are the same, so moving to the JDK versions is a change of import.
+ */
+public final class Flow {
+    private Flow() {
+    }
+
+    /**
+     * Represents a producer of items that are only sent as its subscriber asks for them
+     */
+    public interface Publisher<T> {
+        /**
+         * MODIFIES: this, subscriber
+         * EFFECTS: Adds subscriber, calling its onSubscribe before any other method
+         */
+        void subscribe(Subscriber<? super T> subscriber);
+    }
+
+    /**
+     * Represents a receiver of items, which it asks for through its subscription
+     */
+    public interface Subscriber<T> {
+        /**
+         * EFFECTS: Receives the subscription to request items through and to cancel
+         */
+        void onSubscribe(Subscription subscription);
+
+        /**
+         * EFFECTS: Receives the next item; never called more times than were requested
+         */
+        void onNext(T item);
+
+        /**
+         * EFFECTS: Receives the error that ended the stream; no more methods are called
+         */
+        void onError(Throwable throwable);
+
+        /**
+         * EFFECTS: Learns the stream has ended; no more methods are called
+         */
+        void onComplete();
+    }
+
+    /**
+     * Represents the link between one publisher and one subscriber
+     */
+    public interface Subscription {
+        /**
+         * REQUIRES: n > 0
+         * EFFECTS: Asks for up to n more items
+         */
+        void request(long n);
+
+        /**
+         * EFFECTS: Asks the publisher to stop sending items
+         */
+        void cancel();
+    }
+
+    /**
+     * Represents a stage that is both a subscriber and a publisher
+     */
+    public interface Processor<T, R> extends Subscriber<T>, Publisher<R> {
+    }
+}
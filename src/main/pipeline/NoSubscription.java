@@ -0,0 +1,20 @@
+package pipeline;
+
+/**
+ * Represents the subscription given to a refused subscriber: it is not linked to any publisher, so its requests and
+ * cancellation have no effect on the subscriber that was accepted
+ */
+final class NoSubscription implements Flow.Subscription {
+    static final NoSubscription INSTANCE = new NoSubscription();
+
+    private NoSubscription() {
+    }
+
+    @Override
+    public void request(long n) {
+    }
+
+    @Override
+    public void cancel() {
+    }
+}
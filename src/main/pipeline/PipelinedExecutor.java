@@ -0,0 +1,306 @@
+package pipeline;
+
+import model.CipherSequence;
+import model.ciphers.Cipher;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Represents a sequence run as a pipeline, with every cipher in it on its own thread.
+ *
+ * A reader thread fills fixed-size chunks, each stage thread transforms chunks in place with its cipher and hands
+ * them to the next stage, and the calling thread writes them out and returns them to the reader. Chunks travel
+ * through {@link SpscRing}s, and the same few chunks circulate for the whole run, so once a run has started it
+ * allocates nothing. While the pipeline is full every stage works at once, so throughput is bounded by the slowest
+ * stage rather than the sum of them.
+ *
+ * Each chunk carries its offset in the text. Position independent stages transform it in place character by
+ * character; position dependent ones, which a sequence cannot fuse, transform it with encodeAt or decodeAt from that
+ * offset, building a string for each chunk.
+ */
+public class PipelinedExecutor {
+    public static final int DEFAULT_CHUNK_SIZE = 8192;
+    public static final int DEFAULT_CHUNK_COUNT = 16;
+    private static final int SPINS = 100;
+    private static final long PARK_NANOS = 50_000;
+
+    private final List<Cipher> stages;
+    private final boolean encoding;
+    private final int chunkSize;
+    private final int chunkCount;
+
+    /**
+     * A block of characters passed between stages, and where it starts in the text. A negative length marks the end
+     * of the input.
+     */
+    private static class Chunk {
+        private final char[] data;
+        private int length;
+        private long offset;
+
+        Chunk(int size) {
+            data = new char[size];
+        }
+    }
+
+    /**
+     * REQUIRES: every position dependent cipher in sequence supports encodeAt and decodeAt, and transforms each
+     *           character into exactly one character
+     * MODIFIES: this
+     * EFFECTS: Creates an executor for sequence in one direction, with the default chunk size and count
+     *
+     * @param sequence The sequence to run
+     * @param encoding true to encode, false to decode
+     */
+    public PipelinedExecutor(CipherSequence sequence, boolean encoding) {
+        this(sequence, encoding, DEFAULT_CHUNK_SIZE, DEFAULT_CHUNK_COUNT);
+    }
+
+    /**
+     * REQUIRES: every position dependent cipher in sequence supports encodeAt and decodeAt, and transforms each
+     *           character into exactly one character; chunkSize > 0, chunkCount > 0
+     * MODIFIES: this
+     * EFFECTS: Creates an executor for sequence in one direction, circulating chunkCount chunks of chunkSize chars
+     *
+     * @param sequence The sequence to run
+     * @param encoding true to encode, false to decode
+     * @param chunkSize The number of characters in a chunk
+     * @param chunkCount The number of chunks in flight
+     */
+    public PipelinedExecutor(CipherSequence sequence, boolean encoding, int chunkSize, int chunkCount) {
+        stages = new ArrayList<>();
+        for (Cipher cipher : sequence.getCipherList()) {
+            stages.add(encoding ? stages.size() : 0, cipher);
+        }
+        this.encoding = encoding;
+        this.chunkSize = chunkSize;
+        this.chunkCount = chunkCount;
+    }
+
+    /**
+     * @return The number of stage threads a run uses
+     */
+    public int getStageCount() {
+        return stages.size();
+    }
+
+    /**
+     * MODIFIES: out
+     * EFFECTS: Reads in to its end, runs it through every stage and writes the result to out, returning the number
+     *          of characters written. Neither in nor out is closed.
+     *
+     * @param in The text to transform
+     * @param out Receives the transformed text
+     * @return The number of characters written
+     * @throws IOException Problem reading or writing, a stage failed, or the calling thread was interrupted
+     */
+    public long run(Reader in, Writer out) throws IOException {
+        List<SpscRing<Chunk>> rings = new ArrayList<>();
+        for (int i = 0; i <= stages.size() + 1; i++) {
+            rings.add(new SpscRing<>(chunkCount));
+        }
+        SpscRing<Chunk> free = rings.get(stages.size() + 1);
+        for (int i = 0; i < chunkCount; i++) {
+            free.offer(new Chunk(chunkSize));
+        }
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Thread> threads = new ArrayList<>();
+        threads.add(start("xypher-pipeline-reader", failure, () -> read(in, free, rings.get(0), failure)));
+        for (int i = 0; i < stages.size(); i++) {
+            Cipher cipher = stages.get(i);
+            SpscRing<Chunk> from = rings.get(i);
+            SpscRing<Chunk> to = rings.get(i + 1);
+            threads.add(start("xypher-pipeline-" + cipher, failure, () -> transform(cipher, from, to, failure)));
+        }
+        long written = write(out, rings.get(stages.size()), free, failure);
+        finish(threads, failure);
+        return written;
+    }
+
+    /**
+     * EFFECTS: Starts a daemon thread running task, recording anything it throws as the run's failure
+     */
+    private static Thread start(String name, AtomicReference<Throwable> failure, StageBody task) {
+        Thread thread = new Thread(() -> {
+            try {
+                task.call();
+            } catch (Throwable t) {
+                failure.compareAndSet(null, t);
+            }
+        }, name);
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    /**
+     * A stage body that may throw
+     */
+    private interface StageBody {
+        void call() throws Exception;
+    }
+
+    /**
+     * MODIFIES: in, free, to
+     * EFFECTS: Fills free chunks from in, marking where each starts, and passes them on, ending with an end-of-input
+     *          chunk
+     */
+    private static void read(Reader in, SpscRing<Chunk> free, SpscRing<Chunk> to, AtomicReference<Throwable> failure)
+            throws IOException {
+        long offset = 0;
+        while (true) {
+            Chunk chunk = take(free, failure);
+            chunk.length = in.read(chunk.data, 0, chunk.data.length);
+            chunk.offset = offset;
+            offset += Math.max(chunk.length, 0);
+            put(to, chunk, failure);
+            if (chunk.length < 0) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * MODIFIES: from, to
+     * EFFECTS: Transforms each chunk in place with cipher and passes it on, until the end-of-input chunk
+     */
+    private void transform(Cipher cipher, SpscRing<Chunk> from, SpscRing<Chunk> to,
+                           AtomicReference<Throwable> failure) {
+        boolean independent = cipher.isPositionIndependent();
+        while (true) {
+            Chunk chunk = take(from, failure);
+            if (independent) {
+                char[] data = chunk.data;
+                for (int i = 0; i < chunk.length; i++) {
+                    data[i] = encoding ? cipher.encodeChar(data[i]) : cipher.decodeChar(data[i]);
+                }
+            } else if (chunk.length > 0) {
+                transformAt(cipher, chunk);
+            }
+            put(to, chunk, failure);
+            if (chunk.length < 0) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * MODIFIES: chunk
+     * EFFECTS: Transforms chunk in place with a position dependent cipher, starting from its state at the chunk's
+     *          offset
+     *
+     * @throws IllegalStateException The cipher changed the length of the chunk
+     */
+    private void transformAt(Cipher cipher, Chunk chunk) {
+        String text = new String(chunk.data, 0, chunk.length);
+        String output = encoding ? cipher.encodeAt(text, chunk.offset) : cipher.decodeAt(text, chunk.offset);
+        if (output.length() != chunk.length) {
+            throw new IllegalStateException("Stage changed the chunk length: " + cipher);
+        }
+        output.getChars(0, chunk.length, chunk.data, 0);
+    }
+
+    /**
+     * MODIFIES: out, from, free
+     * EFFECTS: Writes each chunk to out and returns it to the reader, until the end-of-input chunk. Returns the
+     *          number of characters written.
+     */
+    private static long write(Writer out, SpscRing<Chunk> from, SpscRing<Chunk> free,
+                              AtomicReference<Throwable> failure) throws IOException {
+        long written = 0;
+        try {
+            while (true) {
+                Chunk chunk = take(from, failure);
+                if (chunk.length < 0) {
+                    out.flush();
+                    return written;
+                }
+                out.write(chunk.data, 0, chunk.length);
+                written += chunk.length;
+                put(free, chunk, failure);
+            }
+        } catch (IOException | RuntimeException e) {
+            failure.compareAndSet(null, e);
+            return written;
+        }
+    }
+
+    /**
+     * EFFECTS: Waits for the stage threads to stop, and for the reader too unless the run failed (it may be blocked
+     *          in a read, and stops at its next hand-off), then throws the run's failure, if any, as an IOException
+     */
+    private static void finish(List<Thread> threads, AtomicReference<Throwable> failure) throws IOException {
+        boolean interrupted = Thread.interrupted();
+        for (Thread thread : failure.get() == null ? threads : threads.subList(1, threads.size())) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+                failure.compareAndSet(null, new InterruptedIOException("Pipeline interrupted"));
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        Throwable t = failure.get();
+        if (t instanceof IOException) {
+            throw (IOException) t;
+        } else if (t != null) {
+            throw new IOException("Pipeline stage failed", t);
+        }
+    }
+
+    /**
+     * MODIFIES: ring
+     * EFFECTS: Adds chunk to ring, waiting while it is full
+     *
+     * @throws CancellationException The run failed elsewhere, or the calling thread was interrupted
+     */
+    private static void put(SpscRing<Chunk> ring, Chunk chunk, AtomicReference<Throwable> failure) {
+        for (int idle = 0; !ring.offer(chunk); idle++) {
+            backOff(idle, failure);
+        }
+    }
+
+    /**
+     * MODIFIES: ring
+     * EFFECTS: Removes and returns the next chunk from ring, waiting while it is empty
+     *
+     * @throws CancellationException The run failed elsewhere, or the calling thread was interrupted
+     */
+    private static Chunk take(SpscRing<Chunk> ring, AtomicReference<Throwable> failure) {
+        Chunk chunk;
+        for (int idle = 0; (chunk = ring.poll()) == null; idle++) {
+            backOff(idle, failure);
+        }
+        return chunk;
+    }
+
+    /**
+     * EFFECTS: Waits a little, spinning at first and then parking, unless the run has failed or the thread has been
+     *          interrupted
+     *
+     * @throws CancellationException The run failed elsewhere, or the calling thread was interrupted
+     */
+    private static void backOff(int idle, AtomicReference<Throwable> failure) {
+        if (Thread.currentThread().isInterrupted()) {
+            failure.compareAndSet(null, new InterruptedIOException("Pipeline interrupted"));
+        }
+        if (failure.get() != null) {
+            throw new CancellationException("Pipeline stopped");
+        }
+        if (idle < SPINS) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(PARK_NANOS);
+        }
+    }
+}
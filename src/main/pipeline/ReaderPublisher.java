@@ -0,0 +1,169 @@
+package pipeline;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Represents a source of character chunks read from a file, stdin or any other reader.
+ *
+ * Chunks are only read when the subscriber has asked for them, on the given executor, so the reader is never read
+ * ahead of demand. The reader is closed once it is exhausted, fails, or the subscription is cancelled. Only one
+ * subscriber is accepted.
+ */
+public class ReaderPublisher implements Flow.Publisher<CharBuffer> {
+    public static final int DEFAULT_CHUNK_SIZE = 8192;
+
+    private final Reader reader;
+    private final Executor executor;
+    private final int chunkSize;
+    private final AtomicLong demand = new AtomicLong();
+    private final AtomicInteger scheduled = new AtomicInteger();
+    private volatile Flow.Subscriber<? super CharBuffer> subscriber;
+    private volatile boolean done;
+    private volatile boolean cancelled;
+    private volatile Throwable requestError;
+
+    /**
+     * REQUIRES: chunkSize > 0
+     * MODIFIES: this
+     * EFFECTS: Creates a publisher of chunks of up to chunkSize characters read from reader on executor
+     *
+     * @param reader The reader to publish
+     * @param executor The executor reads and deliveries run on
+     * @param chunkSize The maximum number of characters per chunk
+     */
+    public ReaderPublisher(Reader reader, Executor executor, int chunkSize) {
+        this.reader = reader;
+        this.executor = executor;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * EFFECTS: Returns a publisher of a Latin-1 file
+     * @throws IOException Problem opening the file
+     */
+    public static ReaderPublisher ofFile(Path path, Executor executor) throws IOException {
+        return new ReaderPublisher(Files.newBufferedReader(path, StandardCharsets.ISO_8859_1), executor,
+                DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * EFFECTS: Returns a publisher of standard input
+     */
+    public static ReaderPublisher ofStdin(Executor executor) {
+        return new ReaderPublisher(new InputStreamReader(System.in), executor, DEFAULT_CHUNK_SIZE);
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super CharBuffer> subscriber) {
+        boolean accepted;
+        synchronized (this) {
+            accepted = this.subscriber == null;
+            if (accepted) {
+                this.subscriber = subscriber;
+            }
+        }
+        if (!accepted) {
+            subscriber.onSubscribe(NoSubscription.INSTANCE);
+            subscriber.onError(new IllegalStateException("Publisher already has a subscriber"));
+            return;
+        }
+        subscriber.onSubscribe(new Subscription());
+    }
+
+    /**
+     * EFFECTS: Runs drain on the executor unless a drain is already running, in which case that drain loops again
+     */
+    private void schedule() {
+        if (scheduled.getAndIncrement() == 0) {
+            executor.execute(this::drain);
+        }
+    }
+
+    /**
+     * MODIFIES: this
+     * EFFECTS: Reads and delivers chunks while there is demand, until the reader is exhausted or the subscription
+     *          is cancelled. Only one drain runs at a time, so the reader is never read and closed at once.
+     */
+    private void drain() {
+        int missed = 1;
+        do {
+            while (demand.get() > 0 && !done && !cancelled) {
+                demand.decrementAndGet();
+                emit();
+            }
+            if (cancelled && !done) {
+                finish();
+                if (requestError != null) {
+                    subscriber.onError(requestError);
+                }
+            }
+            missed = scheduled.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    /**
+     * MODIFIES: this
+     * EFFECTS: Reads one chunk and delivers it, or ends the stream at end of input or on error
+     */
+    private void emit() {
+        char[] chunk = new char[chunkSize];
+        int read;
+        try {
+            read = reader.read(chunk);
+        } catch (IOException e) {
+            finish();
+            subscriber.onError(e);
+            return;
+        }
+        if (read < 0) {
+            finish();
+            subscriber.onComplete();
+        } else {
+            subscriber.onNext(CharBuffer.wrap(chunk, 0, read));
+        }
+    }
+
+    /**
+     * MODIFIES: this
+     * EFFECTS: Marks the stream done and closes the reader
+     */
+    private void finish() {
+        done = true;
+        try {
+            reader.close();
+        } catch (IOException e) {
+            // the stream is over either way
+        }
+    }
+
+    /**
+     * The subscription handed to the subscriber
+     */
+    private class Subscription implements Flow.Subscription {
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                requestError = new IllegalArgumentException("Demand must be positive: " + n);
+                cancel();
+                return;
+            }
+            demand.getAndUpdate(d -> d > Long.MAX_VALUE - n ? Long.MAX_VALUE : d + n);
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            schedule();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package pipeline;
+
+import model.CipherSequence;
+import model.ciphers.Cipher;
+
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Represents a sequence as a chain of processors, one per cipher, each subscribed to the one before it.
+ *
+ * Chunks pushed into the chain flow through every stage in encoding (or, for decoding, reverse) order, and demand
+ * from the final subscriber flows back up through each stage, so a slow sink throttles the source without anything
+ * queuing in between.
+ */
+public class SequenceProcessor implements Flow.Processor<CharBuffer, CharBuffer> {
+    private final StageProcessor first;
+    private final StageProcessor last;
+    private final int stageCount;
+
+    /**
+     * REQUIRES: sequence is position independent
+     * MODIFIES: this
+     * EFFECTS: Builds the chain of stages for sequence as it is now
+     *
+     * @param sequence The sequence
+     * @param encoding true to encode, false to decode
+     * @throws IllegalArgumentException The sequence is not position independent
+     */
+    public SequenceProcessor(CipherSequence sequence, boolean encoding) throws IllegalArgumentException {
+        List<StageProcessor> stages = new ArrayList<>();
+        for (Cipher cipher : sequence.getCipherList()) {
+            stages.add(encoding ? stages.size() : 0, new StageProcessor(cipher, encoding));
+        }
+        if (stages.isEmpty()) {
+            stages.add(new StageProcessor(sequence, encoding));
+        }
+        for (int i = 0; i + 1 < stages.size(); i++) {
+            stages.get(i).subscribe(stages.get(i + 1));
+        }
+        first = stages.get(0);
+        last = stages.get(stages.size() - 1);
+        stageCount = stages.size();
+    }
+
+    /**
+     * @return The number of stages in the chain
+     */
+    public int getStageCount() {
+        return stageCount;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super CharBuffer> subscriber) {
+        last.subscribe(subscriber);
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        first.onSubscribe(subscription);
+    }
+
+    @Override
+    public void onNext(CharBuffer item) {
+        first.onNext(item);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        first.onError(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+        first.onComplete();
+    }
+}
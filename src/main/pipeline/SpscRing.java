@@ -0,0 +1,84 @@
+package pipeline;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Represents a bounded queue between exactly one producer thread and one consumer thread.
+ *
+ * The slots are allocated once, up front, and the two sides only ever write their own counter, so handing an item
+ * across never allocates or locks. Each counter is published with a release store after the slot it covers is
+ * written, which is what makes the item (and anything written to it before the offer) visible to the other side.
+ *
+ * @param <T> The type of item passed
+ */
+public class SpscRing<T> {
+    private final Object[] slots;
+    private final int mask;
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * REQUIRES: capacity > 0
+     * MODIFIES: this
+     * EFFECTS: Creates an empty ring holding at least capacity items, rounded up to a power of two
+     *
+     * @param capacity The minimum number of items the ring can hold
+     */
+    public SpscRing(int capacity) {
+        int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        slots = new Object[capacity == 1 ? 1 : size];
+        mask = slots.length - 1;
+    }
+
+    /**
+     * REQUIRES: called only from the producer thread
+     * MODIFIES: this
+     * EFFECTS: Adds item and returns true, or returns false if the ring is full
+     *
+     * @param item The item to add, not null
+     * @return true if the item was added
+     */
+    public boolean offer(T item) {
+        long t = tail.get();
+        if (t - head.get() == slots.length) {
+            return false;
+        }
+        slots[(int) t & mask] = item;
+        tail.lazySet(t + 1);
+        return true;
+    }
+
+    /**
+     * REQUIRES: called only from the consumer thread
+     * MODIFIES: this
+     * EFFECTS: Removes and returns the oldest item, or returns null if the ring is empty
+     *
+     * @return The oldest item, or null
+     */
+    @SuppressWarnings("unchecked")
+    public T poll() {
+        long h = head.get();
+        if (h == tail.get()) {
+            return null;
+        }
+        int index = (int) h & mask;
+        T item = (T) slots[index];
+        slots[index] = null;
+        head.lazySet(h + 1);
+        return item;
+    }
+
+    /**
+     * @return The number of items in the ring, as seen by the calling thread
+     */
+    public int size() {
+        return (int) (tail.get() - head.get());
+    }
+
+    /**
+     * @return The number of items the ring can hold
+     */
+    public int capacity() {
+        return slots.length;
+    }
+}
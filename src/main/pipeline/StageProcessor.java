@@ -0,0 +1,171 @@
+package pipeline;
+
+import model.Encoder;
+
+import java.nio.CharBuffer;
+
+/**
+ * Represents one encoder as a processor of character chunks.
+ *
+ * Each chunk in gives exactly one chunk out, so demand is passed straight upstream and the stage never buffers: a
+ * downstream request for n chunks becomes an upstream request for n chunks. Writable heap buffers are transformed in
+ * place; read-only or direct ones are copied. Only position independent encoders can be used, as each chunk is
+ * transformed on its own.
+ */
+public class StageProcessor implements Flow.Processor<CharBuffer, CharBuffer> {
+    private final Encoder encoder;
+    private final boolean encoding;
+    private Flow.Subscription upstream;
+    private volatile Flow.Subscriber<? super CharBuffer> downstream;
+    private long pendingDemand;
+    private boolean cancelled;
+    private boolean completed;
+    private Throwable error;
+
+    /**
+     * REQUIRES: encoder is position independent
+     * MODIFIES: this
+     * EFFECTS: Creates a stage that encodes or decodes each chunk with encoder
+     *
+     * @param encoder The encoder
+     * @param encoding true to encode, false to decode
+     * @throws IllegalArgumentException The encoder is not position independent
+     */
+    public StageProcessor(Encoder encoder, boolean encoding) throws IllegalArgumentException {
+        if (!encoder.isPositionIndependent()) {
+            throw new IllegalArgumentException("Encoder cannot process chunks: " + encoder);
+        }
+        this.encoder = encoder;
+        this.encoding = encoding;
+    }
+
+    /**
+     * MODIFIES: this, subscriber
+     * EFFECTS: Sets the single downstream subscriber; any later subscriber is refused with an error
+     */
+    @Override
+    public void subscribe(Flow.Subscriber<? super CharBuffer> subscriber) {
+        boolean accepted;
+        boolean wasCompleted;
+        Throwable wasError;
+        synchronized (this) {
+            accepted = downstream == null;
+            if (accepted) {
+                downstream = subscriber;
+            }
+            wasCompleted = completed;
+            wasError = error;
+        }
+        if (!accepted) {
+            subscriber.onSubscribe(NoSubscription.INSTANCE);
+            subscriber.onError(new IllegalStateException("Stage already has a subscriber"));
+            return;
+        }
+        subscriber.onSubscribe(new Downstream());
+        if (wasError != null) {
+            subscriber.onError(wasError);
+        } else if (wasCompleted) {
+            subscriber.onComplete();
+        }
+    }
+
+    /**
+     * MODIFIES: this
+     * EFFECTS: Keeps the upstream subscription, passing on any demand or cancellation that arrived before it
+     */
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        long pending;
+        boolean wasCancelled;
+        synchronized (this) {
+            if (upstream != null) {
+                subscription.cancel();
+                return;
+            }
+            upstream = subscription;
+            pending = pendingDemand;
+            pendingDemand = 0;
+            wasCancelled = cancelled;
+        }
+        if (wasCancelled) {
+            subscription.cancel();
+        } else if (pending > 0) {
+            subscription.request(pending);
+        }
+    }
+
+    /**
+     * MODIFIES: item
+     * EFFECTS: Transforms a chunk and passes it downstream
+     */
+    @Override
+    public void onNext(CharBuffer item) {
+        downstream.onNext(transform(item));
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        Flow.Subscriber<? super CharBuffer> subscriber;
+        synchronized (this) {
+            error = throwable;
+            subscriber = downstream;
+        }
+        if (subscriber != null) {
+            subscriber.onError(throwable);
+        }
+    }
+
+    @Override
+    public void onComplete() {
+        Flow.Subscriber<? super CharBuffer> subscriber;
+        synchronized (this) {
+            completed = true;
+            subscriber = downstream;
+        }
+        if (subscriber != null) {
+            subscriber.onComplete();
+        }
+    }
+
+    /**
+     * EFFECTS: Returns chunk with every character transformed, reusing chunk itself when it is a writable array
+     */
+    private CharBuffer transform(CharBuffer chunk) {
+        CharBuffer out = chunk.hasArray() ? chunk : CharBuffer.allocate(chunk.remaining());
+        for (int i = 0; i < chunk.remaining(); i++) {
+            char c = chunk.get(chunk.position() + i);
+            out.put(out.position() + i, encoding ? encoder.encodeChar(c) : encoder.decodeChar(c));
+        }
+        return out;
+    }
+
+    /**
+     * The subscription handed downstream, forwarding demand and cancellation upstream
+     */
+    private class Downstream implements Flow.Subscription {
+        @Override
+        public void request(long n) {
+            Flow.Subscription subscription;
+            synchronized (StageProcessor.this) {
+                subscription = upstream;
+                if (subscription == null) {
+                    pendingDemand = n > Long.MAX_VALUE - pendingDemand ? Long.MAX_VALUE : pendingDemand + n;
+                    return;
+                }
+            }
+            subscription.request(n);
+        }
+
+        @Override
+        public void cancel() {
+            Flow.Subscription subscription;
+            synchronized (StageProcessor.this) {
+                cancelled = true;
+                subscription = upstream;
+            }
+            if (subscription != null) {
+                subscription.cancel();
+            }
+        }
+    }
+}
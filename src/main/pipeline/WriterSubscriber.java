@@ -0,0 +1,87 @@
+package pipeline;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Represents a sink that writes character chunks to a file or any other writer.
+ *
+ * At most {@value #WINDOW} chunks are requested ahead of the writes, so a slow disk slows the whole pipeline rather
+ * than letting chunks pile up. The writer is closed when the stream ends, and the completion future reports how.
+ */
+public class WriterSubscriber implements Flow.Subscriber<CharBuffer> {
+    public static final int WINDOW = 4;
+
+    private final Writer writer;
+    private final CompletableFuture<Long> completion = new CompletableFuture<>();
+    private Flow.Subscription subscription;
+    private long written;
+
+    /**
+     * MODIFIES: this
+     * EFFECTS: Creates a sink that writes to writer
+     *
+     * @param writer The writer to write chunks to
+     */
+    public WriterSubscriber(Writer writer) {
+        this.writer = writer;
+    }
+
+    /**
+     * EFFECTS: Returns a sink that writes a Latin-1 file, replacing it if it exists
+     * @throws IOException Problem opening the file
+     */
+    public static WriterSubscriber ofFile(Path path) throws IOException {
+        return new WriterSubscriber(Files.newBufferedWriter(path, StandardCharsets.ISO_8859_1));
+    }
+
+    /**
+     * @return A future completed with the number of characters written once the stream has been written and closed
+     */
+    public CompletableFuture<Long> getCompletion() {
+        return completion;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        this.subscription = subscription;
+        subscription.request(WINDOW);
+    }
+
+    @Override
+    public void onNext(CharBuffer item) {
+        try {
+            written += item.remaining();
+            writer.append(item);
+            subscription.request(1);
+        } catch (IOException e) {
+            subscription.cancel();
+            onError(e);
+        }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        try {
+            writer.close();
+        } catch (IOException e) {
+            throwable.addSuppressed(e);
+        }
+        completion.completeExceptionally(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+        try {
+            writer.close();
+            completion.complete(written);
+        } catch (IOException e) {
+            completion.completeExceptionally(e);
+        }
+    }
+}
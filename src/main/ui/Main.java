@@ -13,8 +13,10 @@ import java.io.IOException;
 public class Main {
 
     public static void main(String[] args) throws IOException {
-        ShellFactory.createConsoleShell("xypher~", "Xypher - Encipher Text", new ClicheCLI())
+        ClicheCLI cli = new ClicheCLI();
+        ShellFactory.createConsoleShell("xypher~", "Xypher - Encipher Text", cli)
                 .commandLoop();
+        cli.close();
         //JfxApp.run(args);
     }
 }
@@ -1,21 +1,52 @@
 package ui;
 
 import javafx.collections.FXCollections;
+import javafx.collections.MapChangeListener;
 import javafx.collections.ObservableMap;
+import metrics.EncodeEvent;
+import metrics.MetricsRegistry;
+import metrics.SequenceProfiler;
 import model.CipherSequence;
+import model.CipherTextSearch;
 import model.Encoder;
+import model.EncoderIndex;
+import model.ExecutionPlanner;
 import model.ciphers.Cipher;
+import persistence.BatchRunner;
+import persistence.BlockSyncEncoder;
+import persistence.DataFolderWatcher;
+import persistence.EncodedFile;
 import persistence.FileHandler;
+import persistence.MutationJournal;
+import persistence.ResultCache;
+import persistence.WriteBehindSaver;
 
 import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
 
 /**
  * Represents an instance of the App container, provides an API
+ *
+ * Registry access is synchronized so background loaders can swap encoders in while the UI uses the app.
  */
 public class XypherApp {
     private ObservableMap<String, Encoder> encoders;
     private ObservableMap<String, Encoder> readOnlyEncoders;
+    private EncoderIndex index;
     private FileHandler fileHandler;
+    private WriteBehindSaver saver;
+    private MutationJournal journal;
+    private DataFolderWatcher watcher;
+    private MetricsRegistry metrics;
+    private ResultCache resultCache;
+    private SequenceProfiler profiler;
 
     /**
      * MODIFIES: this
@@ -24,7 +55,12 @@ public class XypherApp {
     public XypherApp() {
         encoders = FXCollections.observableHashMap();
         readOnlyEncoders = FXCollections.unmodifiableObservableMap(encoders);
+        index = new EncoderIndex();
+        encoders.addListener(this::updateIndex);
         fileHandler = FileHandler.getInstance();
+        saver = new WriteBehindSaver(fileHandler, WriteBehindSaver.DEFAULT_FLUSH_INTERVAL,
+                WriteBehindSaver.Durability.FORCE);
+        metrics = MetricsRegistry.getInstance();
     }
 
     /**
@@ -34,7 +70,7 @@ public class XypherApp {
      * @return The cipher of that name
      * @throws IllegalArgumentException Encoder is not a Cipher
      */
-    public Cipher getCipher(String name) throws IllegalArgumentException {
+    public synchronized Cipher getCipher(String name) throws IllegalArgumentException {
         if (encoders.get(name) instanceof Cipher) {
             return (Cipher) encoders.get(name);
         } else {
@@ -50,8 +86,48 @@ public class XypherApp {
      * @throws IllegalArgumentException Name is invalid
      * @throws IOException Error writing to file
      */
-    public void saveEncoder(String name) throws IllegalArgumentException, IOException {
-        fileHandler.saveEncoder(getCipher(name));
+    public synchronized void saveEncoder(String name) throws IllegalArgumentException, IOException {
+        fileHandler.saveEncoder(getEncoder(name));
+    }
+
+    /**
+     * REQUIRES: The name of a valid encoder
+     * MODIFIES: filesystem
+     * EFFECTS: Queues an encoder to be saved to file in the background
+     * @param name The name of the encoder
+     * @return A future completed once the encoder is durably written
+     * @throws IllegalArgumentException Name is invalid
+     */
+    public CompletableFuture<Void> saveEncoderAsync(String name) throws IllegalArgumentException {
+        return saver.save(getEncoder(name));
+    }
+
+    /**
+     * REQUIRES: No journal is attached yet
+     * MODIFIES: this
+     * EFFECTS: Restores the registry recovered from a journal, then records every later mutation to it
+     * @param journal The journal to recover from and record to
+     * @throws IOException Error reading the journal
+     */
+    public synchronized void attachJournal(MutationJournal journal) throws IOException {
+        encoders.putAll(journal.recover());
+        this.journal = journal;
+    }
+
+    /**
+     * MODIFIES: filesystem
+     * EFFECTS: Writes any queued saves and journal records, and stops the background writers
+     */
+    public void close() {
+        try {
+            stopWatching();
+        } catch (IOException e) {
+            System.out.println("Error stopping watcher: " + e.getMessage());
+        }
+        saver.close();
+        if (journal != null) {
+            journal.close();
+        }
     }
 
     /**
@@ -60,9 +136,14 @@ public class XypherApp {
      * EFFECTS: Loads a encoder from a file and adds it
      * @param name The name of the encoder
      */
-    public void loadEncoder(String name) throws IOException {
+    public synchronized void loadEncoder(String name) throws IOException {
         try {
-            encoders.put(name, fileHandler.loadEncoder(name));
+            Encoder encoder = fileHandler.loadEncoder(name);
+            encoders.put(name, encoder);
+            if (journal != null) {
+                journal.recordPut(name, encoder);
+                snapshotIfDue();
+            }
         } catch (ClassNotFoundException e) {
             throw new IllegalArgumentException("Invalid File");
         }
@@ -75,7 +156,7 @@ public class XypherApp {
      * @return the sequence
      * @throws IllegalArgumentException Invalid name
      */
-    public CipherSequence getSequence(String name) throws IllegalArgumentException {
+    public synchronized CipherSequence getSequence(String name) throws IllegalArgumentException {
         if (encoders.get(name) instanceof CipherSequence) {
             return (CipherSequence) encoders.get(name);
         } else {
@@ -90,11 +171,15 @@ public class XypherApp {
      * @param encoder The encoder to add
      * @throws IllegalArgumentException Encoder cannot be added
      */
-    public void addEncoder(Encoder encoder) throws IllegalArgumentException {
+    public synchronized void addEncoder(Encoder encoder) throws IllegalArgumentException {
         if (encoders.get(encoder.toString()) != null) {
             throw new IllegalArgumentException("Encoder already exists");
         } else {
             encoders.put(encoder.toString(), encoder);
+            if (journal != null) {
+                journal.recordPut(encoder.toString(), encoder);
+                snapshotIfDue();
+            }
         }
     }
 
@@ -105,11 +190,82 @@ public class XypherApp {
      * @param name encoder name
      * @throws IllegalArgumentException Encoder not in worklist
      */
-    public void deleteEncoder(String name) throws IllegalArgumentException {
+    public synchronized void deleteEncoder(String name) throws IllegalArgumentException {
         if (encoders.get(name) == null) {
             throw new IllegalArgumentException("Encoder does not exist");
         } else {
             encoders.remove(name);
+            metrics.remove(name);
+            if (journal != null) {
+                journal.recordDelete(name);
+                snapshotIfDue();
+            }
+        }
+    }
+
+    /**
+     * REQUIRES: The names of a valid sequence and cipher
+     * MODIFIES: this
+     * EFFECTS: Adds a cipher to the end of a sequence
+     * @param sequenceName sequence name
+     * @param cipherName cipher name
+     * @throws IllegalArgumentException Invalid name
+     */
+    public synchronized void pushCipher(String sequenceName, String cipherName) throws IllegalArgumentException {
+        Cipher cipher = getCipher(cipherName);
+        getSequence(sequenceName).pushCipher(cipher);
+        index.put(sequenceName, getSequence(sequenceName));
+        if (journal != null) {
+            journal.recordPush(sequenceName, cipher);
+            snapshotIfDue();
+        }
+    }
+
+    /**
+     * REQUIRES: The names of a valid sequence and cipher, position within sequence size
+     * MODIFIES: this
+     * EFFECTS: Inserts a cipher into a sequence at position
+     * @param sequenceName sequence name
+     * @param cipherName cipher name
+     * @param position the index at which to insert
+     * @throws IllegalArgumentException Invalid name
+     */
+    public synchronized void addCipher(String sequenceName, String cipherName, int position)
+            throws IllegalArgumentException {
+        Cipher cipher = getCipher(cipherName);
+        getSequence(sequenceName).addCipher(cipher, position);
+        index.put(sequenceName, getSequence(sequenceName));
+        if (journal != null) {
+            journal.recordInsert(sequenceName, cipher, position);
+            snapshotIfDue();
+        }
+    }
+
+    /**
+     * REQUIRES: The name of a valid sequence, position within sequence size
+     * MODIFIES: this
+     * EFFECTS: Removes the cipher at position from a sequence
+     * @param sequenceName sequence name
+     * @param position the index of the cipher to remove
+     * @throws IllegalArgumentException Invalid name
+     */
+    public synchronized void removeCipher(String sequenceName, int position) throws IllegalArgumentException {
+        getSequence(sequenceName).removeCipher(position);
+        index.put(sequenceName, getSequence(sequenceName));
+        if (journal != null) {
+            journal.recordRemove(sequenceName, position);
+            snapshotIfDue();
+        }
+    }
+
+    /**
+     * REQUIRES: A journal is attached
+     * MODIFIES: this
+     * EFFECTS: Snapshots the registry once enough mutations have been journaled since the last snapshot
+     */
+    private void snapshotIfDue() {
+        if (journal.needsSnapshot()) {
+            journal.snapshot(encoders);
         }
     }
 
@@ -122,11 +278,7 @@ public class XypherApp {
      * @throws IllegalArgumentException Invalid Encoder
      */
     public String encode(String encoderName, String text) throws IllegalArgumentException {
-        if (encoders.get(encoderName) != null) {
-            return encoders.get(encoderName).encode(text);
-        } else {
-            throw new IllegalArgumentException("Encoder does not exist");
-        }
+        return transform(encoderName, text, true);
     }
 
     /**
@@ -138,8 +290,288 @@ public class XypherApp {
      * @throws IllegalArgumentException Invalid Encoder
      */
     public String decode(String encoderName, String text) throws IllegalArgumentException {
-        if (encoders.get(encoderName) != null) {
-            return encoders.get(encoderName).decode(text);
+        return transform(encoderName, text, false);
+    }
+
+    /**
+     * REQUIRES: The name of a valid encoder, alphabetic text
+     * EFFECTS: Encodes or decodes some text, recording the call in the metrics and as a flight recorder event
+     * @param encoderName the encoder to use
+     * @param text the text to transform
+     * @param encoding true to encode, false to decode
+     * @return the transformed text
+     * @throws IllegalArgumentException Invalid Encoder
+     */
+    private String transform(String encoderName, String text, boolean encoding) throws IllegalArgumentException {
+        return measure(encoderName, encoding, text.length(),
+                encoder -> encoding ? encoder.encode(text) : encoder.decode(text));
+    }
+
+    /**
+     * REQUIRES: The name of a valid encoder, chars >= 0
+     * EFFECTS: Runs one user operation over chars characters on an encoder, however many calls it makes, and records
+     *          it as a single call in the metrics and as a single flight recorder event
+     * @param encoderName the encoder to use
+     * @param encoding true if the operation encodes, false if it decodes
+     * @param chars the number of characters the operation transforms
+     * @param operation the operation to run on the encoder
+     * @return the operation's output
+     * @throws IllegalArgumentException Invalid Encoder
+     */
+    public String measure(String encoderName, boolean encoding, int chars, Function<Encoder, String> operation)
+            throws IllegalArgumentException {
+        Encoder encoder = getEncoder(encoderName);
+        EncodeEvent event = new EncodeEvent();
+        event.begin();
+        long start = System.nanoTime();
+        String output = operation.apply(encoder);
+        metrics.forEncoder(encoderName, encoding).record(chars, System.nanoTime() - start);
+        event.commit(encoderName, encoding, chars);
+        return output;
+    }
+
+    /**
+     * REQUIRES: The name of a valid encoder, a file encoded by it, offset >= 0, length >= 0
+     * EFFECTS: Decodes characters [offset, offset + length) of an encoded file without reading the rest of it
+     * @param encoderName the encoder the file was encoded with
+     * @param path the encoded file
+     * @param offset the index of the first character to decode
+     * @param length the number of characters to decode
+     * @return the decoded slice, cut short at the end of the file
+     * @throws IllegalArgumentException Invalid Encoder
+     * @throws IOException Error reading the file
+     */
+    public String decodeSlice(String encoderName, Path path, long offset, int length)
+            throws IllegalArgumentException, IOException {
+        try (EncodedFile file = new EncodedFile(path, getEncoder(encoderName))) {
+            return file.decodeSlice(offset, length);
+        }
+    }
+
+    /**
+     * REQUIRES: The name of a valid position independent encoder, a target directory outside the source,
+     *           parallelism > 0
+     * MODIFIES: filesystem
+     * EFFECTS: Encodes or decodes every file under a directory into the same layout under another, resuming from the
+     *          checkpoint of an earlier run of the same job
+     * @param encoderName the encoder to use
+     * @param source the directory to convert
+     * @param target the directory to write into
+     * @param encoding true to encode, false to decode
+     * @param parallelism the maximum number of files converted at once
+     * @param useCache true to reuse results cached in the data folder for unchanged inputs, and cache new ones
+     * @return the outcome of the run
+     * @throws IllegalArgumentException Invalid Encoder or directories
+     * @throws IOException Error listing the source, writing the checkpoint or opening the cache
+     */
+    public BatchRunner.Report runBatch(String encoderName, Path source, Path target, boolean encoding,
+                                       int parallelism, boolean useCache)
+            throws IllegalArgumentException, IOException {
+        BatchRunner runner = new BatchRunner(getEncoder(encoderName), encoding, parallelism);
+        if (useCache) {
+            runner.setCache(getResultCache());
+        }
+        return runner.run(source, target);
+    }
+
+    /**
+     * REQUIRES: The name of a valid position independent encoder
+     * MODIFIES: filesystem
+     * EFFECTS: Brings an encoded copy of a file up to date, encoding and rewriting only the blocks of the source that
+     *          changed since the last sync
+     * @param encoderName the encoder to use
+     * @param source the plaintext file
+     * @param output the encoded file, with its block manifest beside it
+     * @return the outcome of the sync
+     * @throws IllegalArgumentException Invalid Encoder
+     * @throws IOException Error reading the source or writing the output
+     */
+    public BlockSyncEncoder.Result syncEncode(String encoderName, Path source, Path output)
+            throws IllegalArgumentException, IOException {
+        return new BlockSyncEncoder(getEncoder(encoderName), BlockSyncEncoder.DEFAULT_BLOCK_SIZE).sync(source, output);
+    }
+
+    /**
+     * MODIFIES: filesystem
+     * EFFECTS: Sets up the execution planner from its profile in the data folder, calibrating it and saving a new
+     *          profile if there is none for this machine
+     * @throws IOException Error saving the profile
+     */
+    public void loadExecutionPlan() throws IOException {
+        ExecutionPlanner.getInstance().loadOrCalibrate(planProfile());
+    }
+
+    /**
+     * MODIFIES: filesystem
+     * EFFECTS: Recalibrates the execution planner and saves its profile in the data folder
+     * @return the calibrated fork/join threshold, in characters
+     * @throws IOException Error saving the profile
+     */
+    public int calibrateExecutionPlan() throws IOException {
+        ExecutionPlanner planner = ExecutionPlanner.getInstance();
+        int threshold = planner.calibrate();
+        planner.saveProfile(planProfile());
+        return threshold;
+    }
+
+    /**
+     * EFFECTS: Returns the path of the execution planner's profile in the data folder
+     */
+    private static Path planProfile() {
+        return Paths.get(FileHandler.DATA_FOLDER, ExecutionPlanner.PROFILE_FILE);
+    }
+
+    /**
+     * MODIFIES: this, filesystem
+     * EFFECTS: Returns the result cache in the data folder, opening it the first time it is needed
+     * @return the result cache
+     * @throws IOException Error opening the cache
+     */
+    private synchronized ResultCache getResultCache() throws IOException {
+        if (resultCache == null) {
+            resultCache = ResultCache.openDefault();
+        }
+        return resultCache;
+    }
+
+    /**
+     * REQUIRES: The name of a valid position independent encoder, non-empty terms
+     * EFFECTS: Prepares a search for plaintext terms in text encoded by an encoder, without decoding the text
+     * @param encoderName the encoder the text was encoded with
+     * @param terms the plaintext terms to find
+     * @return the search, ready to run over any amount of ciphertext
+     * @throws IllegalArgumentException Invalid Encoder or terms
+     */
+    public CipherTextSearch createSearch(String encoderName, Collection<String> terms)
+            throws IllegalArgumentException {
+        return new CipherTextSearch(getEncoder(encoderName), terms);
+    }
+
+    /**
+     * MODIFIES: this
+     * EFFECTS: Starts reloading encoder files that other processes create or change in the data folder,
+     *          replacing any running watcher
+     * @param applyExecutor The executor reloaded encoders are merged into the registry on
+     * @throws IOException Error watching the data folder
+     */
+    public synchronized void startWatching(Executor applyExecutor) throws IOException {
+        stopWatching();
+        watcher = new DataFolderWatcher(fileHandler, DataFolderWatcher.DEFAULT_DEBOUNCE, applyExecutor,
+                this::mergeEncoders);
+    }
+
+    /**
+     * MODIFIES: this
+     * EFFECTS: Stops reloading changed encoder files, if a watcher is running
+     * @throws IOException Error closing the watcher
+     */
+    public synchronized void stopWatching() throws IOException {
+        if (watcher != null) {
+            watcher.close();
+            watcher = null;
+        }
+    }
+
+    /**
+     * @return true if changed encoder files are being reloaded
+     */
+    public synchronized boolean isWatching() {
+        return watcher != null;
+    }
+
+    /**
+     * MODIFIES: this
+     * EFFECTS: Swaps a batch of reloaded encoders into the registry in one step, skipping any that are unchanged
+     * @param loaded The reloaded encoders, keyed by name
+     */
+    public synchronized void mergeEncoders(Map<String, Encoder> loaded) {
+        for (Map.Entry<String, Encoder> entry : loaded.entrySet()) {
+            Encoder current = encoders.get(entry.getKey());
+            if (current == null || !fileHandler.toJson(current).equals(fileHandler.toJson(entry.getValue()))) {
+                encoders.put(entry.getKey(), entry.getValue());
+                if (journal != null) {
+                    journal.recordPut(entry.getKey(), entry.getValue());
+                    snapshotIfDue();
+                }
+            }
+        }
+    }
+
+    /**
+     * MODIFIES: this
+     * EFFECTS: Keeps the name index in step with the registry
+     */
+    private void updateIndex(MapChangeListener.Change<? extends String, ? extends Encoder> change) {
+        if (change.wasAdded()) {
+            index.put(change.getKey(), change.getValueAdded());
+        } else if (change.wasRemoved()) {
+            index.remove(change.getKey());
+        }
+    }
+
+    /**
+     * REQUIRES: offset >= 0, limit >= 0
+     * EFFECTS: Returns, in name order, a page of the names that start with prefix and belong to encoders of type
+     * @param prefix The name prefix, "" for all
+     * @param type The type of encoder to list, Encoder.class for all
+     * @param offset The number of matching names to skip
+     * @param limit The maximum number of names to return
+     * @return The matching names
+     */
+    public synchronized List<String> findEncoders(String prefix, Class<? extends Encoder> type, int offset,
+                                                  int limit) {
+        return index.find(prefix, type, offset, limit);
+    }
+
+    /**
+     * EFFECTS: Returns the number of encoder names that start with prefix
+     * @param prefix The name prefix, "" for all
+     * @return The number of matching names
+     */
+    public synchronized int countEncoders(String prefix) {
+        return index.count(prefix);
+    }
+
+    /**
+     * EFFECTS: Returns prefix extended as far as all encoder names starting with it agree
+     * @param prefix The name prefix to complete
+     * @return The completed prefix
+     */
+    public synchronized String completeName(String prefix) {
+        return index.complete(prefix);
+    }
+
+    /**
+     * REQUIRES: offset >= 0, limit >= 0
+     * EFFECTS: Returns, in name order, a page of the sequences that contain the cipher called cipherName
+     * @param cipherName The cipher name
+     * @param offset The number of sequences to skip
+     * @param limit The maximum number of names to return
+     * @return The names of the sequences containing the cipher
+     */
+    public synchronized List<String> findSequencesContaining(String cipherName, int offset, int limit) {
+        return index.findContaining(cipherName, offset, limit);
+    }
+
+    /**
+     * EFFECTS: Returns the number of sequences that contain the cipher called cipherName
+     * @param cipherName The cipher name
+     * @return The number of sequences containing it
+     */
+    public synchronized int countSequencesContaining(String cipherName) {
+        return index.countContaining(cipherName);
+    }
+
+    /**
+     * REQUIRES: The name of a valid encoder
+     * EFFECTS: Returns a reference to a stored encoder by its name
+     * @param name The name of the encoder
+     * @return The encoder of that name
+     * @throws IllegalArgumentException Encoder does not exist
+     */
+    private synchronized Encoder getEncoder(String name) throws IllegalArgumentException {
+        if (encoders.get(name) != null) {
+            return encoders.get(name);
         } else {
             throw new IllegalArgumentException("Encoder does not exist");
         }
@@ -150,7 +582,7 @@ public class XypherApp {
      * @return string representation of app
      */
     @Override
-    public String toString() {
+    public synchronized String toString() {
         StringBuilder sb = new StringBuilder();
         sb.append("Encoders: \n");
         encoders.forEach(
@@ -165,6 +597,49 @@ public class XypherApp {
         return sb.toString();
     }
 
+    /**
+     * EFFECTS: Returns a table of per-encoder and per-stage call counts, throughput and latency percentiles
+     * @return The formatted metrics report
+     */
+    public String metricsReport() {
+        return metrics.report();
+    }
+
+    /**
+     * MODIFIES: all sequences
+     * EFFECTS: Starts or stops recording metrics for every stage of every sequence. While on, sequences run stage
+     *          by stage so each stage can be timed; while off, only whole calls are recorded and sequences run as
+     *          planned.
+     * @param recording true to record stage metrics, false to stop
+     */
+    public void setStageMetrics(boolean recording) {
+        CipherSequence.setStageObserver(recording ? metrics : null);
+    }
+
+    /**
+     * MODIFIES: this
+     * EFFECTS: Starts or stops profiling every stage of every sequence run. A new profile starts empty; the last
+     *          profile can still be reported after profiling stops.
+     * @param profiling true to start profiling, false to stop
+     */
+    public synchronized void setProfiling(boolean profiling) {
+        if (profiling) {
+            profiler = new SequenceProfiler();
+            CipherSequence.setStageProfiler(profiler);
+        } else {
+            CipherSequence.setStageProfiler(null);
+        }
+    }
+
+    /**
+     * EFFECTS: Returns the time, characters and allocation of every sequence stage profiled, or a hint if nothing
+     *          has been profiled
+     * @return the formatted profile
+     */
+    public synchronized String profileReport() {
+        return profiler == null ? "Profiling has not been started" : profiler.report();
+    }
+
     public ObservableMap<String, Encoder> getEncoders() {
         return readOnlyEncoders;
     }
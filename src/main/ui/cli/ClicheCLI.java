@@ -2,16 +2,28 @@ package ui.cli;
 
 import asg.cliche.Command;
 import model.CipherSequence;
+import model.CipherTextSearch;
+import model.Encoder;
 import model.ciphers.*;
+import persistence.BatchRunner;
+import persistence.BlockSyncEncoder;
+import persistence.FileHandler;
+import persistence.MappedTextFile;
+import persistence.MutationJournal;
 import ui.XypherApp;
 
 import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Arrays;
 import java.util.LinkedList;
+import java.util.List;
 
 /**
  * Represents a ClicheCLI user interface
  */
 public class ClicheCLI {
+    public static final int PAGE_SIZE = 50;
+    public static final int CONTEXT_RADIUS = 20;
 
     private XypherApp app;
 
@@ -21,6 +33,25 @@ public class ClicheCLI {
      */
     public ClicheCLI() {
         app = new XypherApp();
+        try {
+            app.attachJournal(new MutationJournal(FileHandler.DATA_FOLDER, FileHandler.getInstance(),
+                    MutationJournal.DEFAULT_SNAPSHOT_INTERVAL));
+        } catch (IOException e) {
+            System.out.println("Error recovering encoders: " + e.getMessage());
+        }
+        try {
+            app.loadExecutionPlan();
+        } catch (IOException e) {
+            System.out.println("Error saving execution profile: " + e.getMessage());
+        }
+    }
+
+    /**
+     * MODIFIES: filesystem
+     * EFFECTS: flushes pending saves, called once the command loop exits
+     */
+    public void close() {
+        app.close();
     }
 
     /**
@@ -73,11 +104,11 @@ public class ClicheCLI {
     }
 
     /**
-     * EFFECTS: Lists the encoders currently in worklist
+     * EFFECTS: Lists the first page of encoders currently in worklist
      */
     @Command
     public void listEncoders() {
-        System.out.println(app.toString());
+        findEncoders("", 1);
     }
 
     /**
@@ -102,6 +133,126 @@ public class ClicheCLI {
         }
     }
 
+    /**
+     * REQUIRES: page >= 1
+     * EFFECTS: Lists one page of the encoders whose names start with prefix, in name order
+     * @param prefix name prefix
+     * @param page page number, from 1
+     */
+    @Command
+    public void findEncoders(String prefix, int page) {
+        int offset = (Math.max(page, 1) - 1) * PAGE_SIZE;
+        StringBuilder sb = new StringBuilder();
+        for (String name : app.findEncoders(prefix, Encoder.class, offset, PAGE_SIZE)) {
+            sb.append(name).append(app.getEncoders().get(name) instanceof Cipher ? " : Cipher\n" : " : Sequence\n");
+        }
+        System.out.print(sb.toString());
+        printPageFooter(page, app.countEncoders(prefix));
+    }
+
+    /**
+     * EFFECTS: Lists the first page of the encoders whose names start with prefix
+     * @param prefix name prefix
+     */
+    @Command
+    public void findEncoders(String prefix) {
+        findEncoders(prefix, 1);
+    }
+
+    /**
+     * EFFECTS: Completes an encoder name as far as it is unambiguous, and lists the candidates if there are few
+     * @param prefix the start of an encoder name
+     */
+    @Command
+    public void complete(String prefix) {
+        String completion = app.completeName(prefix);
+        int matches = app.countEncoders(completion);
+        System.out.println(completion + " (" + matches + " matches)");
+        if (matches > 1 && matches <= PAGE_SIZE) {
+            app.findEncoders(completion, Encoder.class, 0, PAGE_SIZE).forEach(name -> System.out.println("- " + name));
+        }
+    }
+
+    /**
+     * REQUIRES: page >= 1
+     * EFFECTS: Lists one page of the sequences that contain a cipher, in name order
+     * @param cipherName cipher name
+     * @param page page number, from 1
+     */
+    @Command
+    public void containing(String cipherName, int page) {
+        int offset = (Math.max(page, 1) - 1) * PAGE_SIZE;
+        List<String> sequences = app.findSequencesContaining(cipherName, offset, PAGE_SIZE);
+        sequences.forEach(name -> System.out.println(name + " : Sequence"));
+        printPageFooter(page, app.countSequencesContaining(cipherName));
+    }
+
+    /**
+     * EFFECTS: Lists the first page of the sequences that contain a cipher
+     * @param cipherName cipher name
+     */
+    @Command
+    public void containing(String cipherName) {
+        containing(cipherName, 1);
+    }
+
+    /**
+     * EFFECTS: Prints which page of how many matches was shown
+     */
+    private void printPageFooter(int page, int matches) {
+        int pages = Math.max((matches + PAGE_SIZE - 1) / PAGE_SIZE, 1);
+        System.out.println("Page " + Math.max(page, 1) + " of " + pages + " (" + matches + " matches)");
+    }
+
+    /**
+     * EFFECTS: prints call counts, throughput and latency percentiles per encoder, and per sequence stage
+     *          while stage metrics are on
+     */
+    @Command
+    public void metrics() {
+        System.out.println(app.metricsReport());
+    }
+
+    /**
+     * REQUIRES: "on" or "off"
+     * MODIFIES: this
+     * EFFECTS: starts or stops recording metrics for each stage of every sequence, on top of the per-call metrics
+     * @param mode on/off
+     */
+    @Command
+    public void stageMetrics(String mode) {
+        if (mode.equals("on") || mode.equals("off")) {
+            app.setStageMetrics(mode.equals("on"));
+        } else {
+            System.out.println("Unrecognized mode");
+        }
+    }
+
+    /**
+     * REQUIRES: "on", "off" or "report"
+     * MODIFIES: this
+     * EFFECTS: starts a fresh profile of every sequence stage, stops profiling, or prints the time, characters and
+     *          bytes allocated by each stage profiled
+     * @param mode on/off/report
+     */
+    @Command
+    public void profile(String mode) {
+        switch (mode) {
+            case "on":
+                app.setProfiling(true);
+                break;
+            case "off":
+                app.setProfiling(false);
+                break;
+            case "report":
+                System.out.println(app.profileReport());
+                break;
+            default:
+                System.out.println("Unrecognized mode");
+                break;
+        }
+    }
+
     /**
      * REQUIRES: a valid encoder name, alphabetic text
      * EFFECTS: encodes and prints out text
@@ -132,17 +283,123 @@ public class ClicheCLI {
         }
     }
 
+    /**
+     * REQUIRES: a valid encoder name, a file encoded by it, offset >= 0, length >= 0
+     * EFFECTS: decodes and prints out a slice of an encoded file, without reading what comes before it
+     * @param encoder encoder the file was encoded with
+     * @param path encoded file
+     * @param offset index of the first character to decode
+     * @param length number of characters to decode
+     */
+    @Command
+    public void decodeSlice(String encoder, String path, long offset, int length) {
+        try {
+            System.out.println(app.decodeSlice(encoder, Paths.get(path), offset, length));
+        } catch (IllegalArgumentException | UnsupportedOperationException | IOException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+
+    /**
+     * REQUIRES: a valid encoder name, a file encoded by it, and at least one term
+     * EFFECTS: finds plaintext terms in an encoded file without decoding it, printing the first page of hits with
+     *          their decoded context
+     * @param args encoderName, filePath, term...
+     */
+    @Command
+    public void searchFile(String... args) {
+        try {
+            CipherTextSearch search = app.createSearch(args[0], Arrays.asList(args).subList(2, args.length));
+            MappedTextFile file = new MappedTextFile(Paths.get(args[1]));
+            for (CipherTextSearch.Match match : search.search(file, PAGE_SIZE)) {
+                System.out.println(match.getOffset() + " " + match.getTerm() + " : "
+                        + search.context(file, match, CONTEXT_RADIUS).replace('\n', ' '));
+            }
+        } catch (IllegalArgumentException | IOException e) {
+            System.out.println(e.getMessage());
+        } catch (IndexOutOfBoundsException e) {
+            System.out.println("Incorrect arguments");
+        }
+    }
+
+    /**
+     * REQUIRES: "encode" or "decode", a valid encoder name, and a target directory outside the source directory
+     * MODIFIES: filesystem
+     * EFFECTS: converts every file under source into target on all cores, resuming an interrupted run and reusing
+     *          cached results for inputs converted before, and prints the throughput and any files that failed
+     * @param mode encode/decode
+     * @param encoder encoder name
+     * @param source directory to convert
+     * @param target directory to write into
+     */
+    @Command
+    public void batch(String mode, String encoder, String source, String target) {
+        if (!mode.equals("encode") && !mode.equals("decode")) {
+            System.out.println("Unrecognized mode");
+            return;
+        }
+        try {
+            BatchRunner.Report report = app.runBatch(encoder, Paths.get(source), Paths.get(target),
+                    mode.equals("encode"), Runtime.getRuntime().availableProcessors(), true);
+            System.out.printf("%d converted (%d from cache), %d already done, %d failed in %.2f s "
+                    + "(%.1f files/s, %.2f MB/s)%n", report.getConverted(), report.getCacheHits(),
+                    report.getSkipped(), report.getFailures().size(),
+                    report.getElapsedNanos() / 1e9, report.filesPerSecond(), report.megabytesPerSecond());
+            report.getFailures().forEach((path, error) -> System.out.println(path + ": " + error));
+        } catch (IllegalArgumentException | IOException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+
+    /**
+     * REQUIRES: a valid encoder name
+     * MODIFIES: filesystem
+     * EFFECTS: updates an encoded copy of a file, re-encoding only the blocks that changed since the last sync, and
+     *          prints how much was rewritten
+     * @param encoder encoder name
+     * @param source plaintext file
+     * @param output encoded file
+     */
+    @Command
+    public void syncFile(String encoder, String source, String output) {
+        try {
+            BlockSyncEncoder.Result result = app.syncEncode(encoder, Paths.get(source), Paths.get(output));
+            System.out.println(result.getRewritten() + " of " + result.getBlocks() + " blocks rewritten ("
+                    + result.getBytesWritten() + " bytes)");
+        } catch (IllegalArgumentException | IOException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+
+    /**
+     * MODIFIES: filesystem
+     * EFFECTS: re-measures the text length at which encoding is split across cores, saves it, and prints it
+     */
+    @Command
+    public void calibrate() {
+        try {
+            int threshold = app.calibrateExecutionPlan();
+            System.out.println(threshold == Integer.MAX_VALUE ? "Encoding stays on one core"
+                    : "Texts of " + threshold + " characters or more are split across cores");
+        } catch (IOException e) {
+            System.out.println("Error saving execution profile: " + e.getMessage());
+        }
+    }
+
     /**
      * REQUIRES: a valid encoder name
      * MODIFIES: filesystem
-     * EFFECTS: saves a encoder to file
+     * EFFECTS: queues a encoder to be saved to file in the background
      * @param name encoder name
      */
     @Command
     public void saveEncoder(String name) {
         try {
-            app.saveEncoder(name);
-        } catch (IllegalArgumentException | IOException e) {
+            app.saveEncoderAsync(name).exceptionally(e -> {
+                System.out.println("Error saving " + name + ": " + e.getMessage());
+                return null;
+            });
+        } catch (IllegalArgumentException e) {
             System.out.println(e.getMessage());
         }
     }
@@ -162,6 +419,40 @@ public class ClicheCLI {
         }
     }
 
+    /**
+     * REQUIRES: "inline" or "reference"
+     * MODIFIES: this
+     * EFFECTS: sets whether saved sequences contain full copies of their ciphers or refer to each cipher's own file
+     * @param mode inline/reference
+     */
+    @Command
+    public void sequenceStorage(String mode) {
+        try {
+            FileHandler.getInstance().setSequenceStorage(FileHandler.SequenceStorage.valueOf(mode.toUpperCase()));
+        } catch (IllegalArgumentException e) {
+            System.out.println("Unrecognized storage mode");
+        }
+    }
+
+    /**
+     * REQUIRES: "on" or "off"
+     * MODIFIES: this
+     * EFFECTS: starts or stops reloading encoder files changed in the data folder by other processes
+     * @param mode on/off
+     */
+    @Command
+    public void watchData(String mode) {
+        try {
+            if (mode.equals("on")) {
+                app.startWatching(Runnable::run);
+            } else {
+                app.stopWatching();
+            }
+        } catch (IOException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+
     /**
      * REQUIRES: valid encoder name
      * MODIFIES: this
@@ -186,21 +477,20 @@ public class ClicheCLI {
     @Command
     public void modifySequence(String... args) {
         try {
-            CipherSequence sequence = app.getSequence(args[0]);
             switch (args[1]) {
                 case "add":
-                    sequence.addCipher(app.getCipher(args[2]), Integer.parseInt(args[3]));
+                    app.addCipher(args[0], args[2], Integer.parseInt(args[3]));
                     break;
                 case "remove":
-                    sequence.removeCipher(Integer.parseInt(args[2]));
+                    app.removeCipher(args[0], Integer.parseInt(args[2]));
                     break;
                 case "push":
-                    sequence.pushCipher(app.getCipher(args[2]));
+                    app.pushCipher(args[0], args[2]);
                     break;
                 default:
                     throw new IllegalArgumentException("Invalid arguments");
             }
-        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
             System.out.println(e.getMessage());
         }
     }
@@ -0,0 +1,78 @@
+package ui.gui;
+
+import javafx.concurrent.Task;
+import model.Encoder;
+import ui.XypherApp;
+
+/**
+ * Represents an encode or decode of some text, run off the FX Application Thread.
+ *
+ * Text for a position independent encoder is transformed in chunks of {@value #CHUNK_SIZE} characters, reporting
+ * progress after each one and checking for cancellation in between; any other encoder transforms the whole text in
+ * one call. Either way the task is recorded as one operation in the app's metrics.
+ */
+public class EncodeTask extends Task<String> {
+    public static final int CHUNK_SIZE = 64 * 1024;
+
+    private final XypherApp app;
+    private final String encoderName;
+    private final String text;
+    private final boolean encoding;
+
+    /**
+     * MODIFIES: this
+     * EFFECTS: Creates a task that transforms text with a registry encoder
+     *
+     * @param app The app holding the encoder
+     * @param encoderName The name of the encoder
+     * @param text The text to transform
+     * @param encoding true to encode, false to decode
+     */
+    public EncodeTask(XypherApp app, String encoderName, String text, boolean encoding) {
+        this.app = app;
+        this.encoderName = encoderName;
+        this.text = text;
+        this.encoding = encoding;
+    }
+
+    /**
+     * EFFECTS: Transforms the text with the encoder, recorded as one operation
+     *
+     * @return The transformed text, or null if cancelled
+     */
+    @Override
+    protected String call() {
+        return app.measure(encoderName, encoding, text.length(), this::transform);
+    }
+
+    /**
+     * EFFECTS: Transforms the text chunk by chunk if encoder is position independent, otherwise in one call
+     *
+     * @return The transformed text, or null if cancelled
+     */
+    private String transform(Encoder encoder) {
+        if (!encoder.isPositionIndependent()) {
+            String output = encoding ? encoder.encode(text) : encoder.decode(text);
+            updateProgress(text.length(), text.length());
+            return output;
+        }
+        StringBuilder output = new StringBuilder(text.length());
+        for (int start = 0; start < text.length(); start += CHUNK_SIZE) {
+            if (isCancelled()) {
+                return null;
+            }
+            int end = Math.min(text.length(), start + CHUNK_SIZE);
+            String chunk = text.substring(start, end);
+            output.append(encoding ? encoder.encode(chunk) : encoder.decode(chunk));
+            updateProgress(end, text.length());
+        }
+        return output.toString();
+    }
+
+    /**
+     * @return true if this task encodes, false if it decodes
+     */
+    public boolean isEncoding() {
+        return encoding;
+    }
+}
@@ -0,0 +1,114 @@
+package ui.gui;
+
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyObjectProperty;
+import javafx.collections.MapChangeListener;
+import javafx.scene.control.ComboBox;
+import javafx.scene.control.ListView;
+import javafx.scene.control.TextField;
+import javafx.scene.layout.VBox;
+import javafx.scene.text.Text;
+import model.CipherSequence;
+import model.Encoder;
+import model.ciphers.Cipher;
+import ui.XypherApp;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Represents a searchable list of registry encoders, for registries too large for a combo box.
+ *
+ * Names are looked up through the registry's prefix index and filtered by encoder type, and the list view only
+ * renders the rows on screen. Registry changes do not touch the list directly: any number of changes made before
+ * the next pulse are folded into a single refresh on the FX Application Thread.
+ */
+public class EncoderPicker extends VBox {
+    public static final int MAX_SHOWN = 10000;
+    private static final Map<String, Class<? extends Encoder>> TYPES = new LinkedHashMap<>();
+
+    static {
+        TYPES.put("All", Encoder.class);
+        TYPES.put("Ciphers", Cipher.class);
+        TYPES.put("Sequences", CipherSequence.class);
+    }
+
+    private final XypherApp app;
+    private final TextField filterField = new TextField();
+    private final ComboBox<String> typeBox = new ComboBox<>();
+    private final ListView<String> names = new ListView<>();
+    private final Text statusText = new Text();
+    private final AtomicBoolean refreshScheduled = new AtomicBoolean();
+
+    /**
+     * MODIFIES: this
+     * EFFECTS: Creates a picker over the app's registry, showing encoders of the given type
+     *
+     * @param app The app whose registry is listed
+     * @param type The type to show initially: one of "All", "Ciphers" or "Sequences"
+     * @param typeSelectable true to let the user change the type
+     */
+    public EncoderPicker(XypherApp app, String type, boolean typeSelectable) {
+        this.app = app;
+        setSpacing(5);
+        filterField.setPromptText("Filter by name prefix...");
+        filterField.textProperty().addListener((observable, old, text) -> refresh());
+        typeBox.getItems().addAll(TYPES.keySet());
+        typeBox.getSelectionModel().select(type);
+        typeBox.setOnAction(e -> refresh());
+        typeBox.setVisible(typeSelectable);
+        typeBox.setManaged(typeSelectable);
+        names.setPrefHeight(150);
+        app.getEncoders().addListener((MapChangeListener<String, Encoder>) change -> scheduleRefresh());
+        getChildren().addAll(filterField, typeBox, names, statusText);
+        refresh();
+    }
+
+    /**
+     * @return The selected encoder name, null if none
+     */
+    public String getSelected() {
+        return names.getSelectionModel().getSelectedItem();
+    }
+
+    /**
+     * @return The property holding the selected encoder name
+     */
+    public ReadOnlyObjectProperty<String> selectedProperty() {
+        return names.getSelectionModel().selectedItemProperty();
+    }
+
+    /**
+     * MODIFIES: this
+     * EFFECTS: Queues a refresh on the FX Application Thread, unless one is already queued
+     */
+    private void scheduleRefresh() {
+        if (refreshScheduled.compareAndSet(false, true)) {
+            Platform.runLater(() -> {
+                refreshScheduled.set(false);
+                refresh();
+            });
+        }
+    }
+
+    /**
+     * MODIFIES: this
+     * EFFECTS: Reloads the matching names from the index, keeping the selection if it still matches
+     */
+    private void refresh() {
+        String selected = getSelected();
+        List<String> matches = app.findEncoders(filterField.getText(),
+                TYPES.get(typeBox.getSelectionModel().getSelectedItem()), 0, MAX_SHOWN);
+        names.getItems().setAll(matches);
+        if (selected != null && matches.contains(selected)) {
+            names.getSelectionModel().select(selected);
+        }
+        if (matches.size() == MAX_SHOWN) {
+            statusText.setText("First " + MAX_SHOWN + " matches, type to narrow");
+        } else {
+            statusText.setText(matches.size() + " matches");
+        }
+    }
+}
@@ -1,8 +1,11 @@
 package ui.gui;
 
+import javafx.animation.AnimationTimer;
 import javafx.application.Application;
-import javafx.collections.MapChangeListener;
+import javafx.application.Platform;
 import javafx.collections.ObservableMap;
+import javafx.concurrent.Task;
+import javafx.concurrent.Worker;
 import javafx.event.ActionEvent;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
@@ -10,21 +13,32 @@ import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.layout.*;
 import javafx.scene.text.Text;
+import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 import model.CipherSequence;
 import model.Encoder;
+import model.IncrementalEncoder;
 import model.ciphers.*;
+import persistence.FileHandler;
+import persistence.FileTranscoder;
+import persistence.MappedTextFile;
+import persistence.MutationJournal;
 import ui.XypherApp;
 
 import javax.sound.midi.MidiChannel;
 import javax.sound.midi.MidiSystem;
 import javax.sound.midi.MidiUnavailableException;
 import javax.sound.midi.Synthesizer;
+import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
-import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Represents a javafx xypher application
@@ -35,7 +49,7 @@ public class JfxApp extends Application {
     private Encoder activeEncoder;
 
     //EncoderTable
-    final ComboBox<String> encoderSelectionBox = new ComboBox<>();
+    private EncoderPicker encoderPicker;
         //EncoderTypePane
     final ComboBox<String> encoderTypesBox = new ComboBox<>();
     final TextField newSequenceNameField = new TextField();
@@ -47,9 +61,10 @@ public class JfxApp extends Application {
     final Button saveButton = new Button("Save");
     final Button loadButton = new Button("Load");
     final TextField loadPath = new TextField();
+    final CheckBox watchDataBox = new CheckBox("Reload changed files");
     //ConfigPane
     final Text titleContextText = new Text("Context");
-    final ComboBox<String> sequenceEncodersBox = new ComboBox<>();
+    private EncoderPicker sequencePicker;
     final Button addEncoderToSeqButton = new Button("Add Active Cipher to sequence");
     final Button removeEncoderFromSeqButton = new Button("Remove Cipher from sequence");
     final ListView<String> sequenceContents = new ListView<>();
@@ -59,7 +74,30 @@ public class JfxApp extends Application {
     final TextField outputTextField = new TextField();
     final Button encodeButton = new Button("Encode");
     final Button decodeButton = new Button("Decode");
+    final Button cancelButton = new Button("Cancel");
+    final ProgressBar encodeProgress = new ProgressBar(0);
+    final CheckBox liveBox = new CheckBox("Live");
+    //FilePane
+    static final int PAGE_SIZE = 1024;
+    final Button openFileButton = new Button("Open File...");
+    final Button encodeFileButton = new Button("Encode to File...");
+    final Button decodeFileButton = new Button("Decode to File...");
+    final CheckBox showDecodedBox = new CheckBox("Show decoded");
+    final ListView<Integer> filePages = new ListView<>();
+    final Text fileNameText = new Text("No file open");
+    private MappedTextFile openFile;
     Synthesizer synth;
+    private ExecutorService workerPool;
+    private ScheduledExecutorService soundScheduler;
+    private Task<?> runningTask;
+    private IncrementalEncoder liveEncoder;
+    private String liveText;
+    private final AnimationTimer liveTimer = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            refreshLiveOutput();
+        }
+    };
 
     /**
      * Formatted Column region
@@ -101,21 +139,43 @@ public class JfxApp extends Application {
         mainGrid.add(genConfigPane(), 1, 0);
         mainGrid.add(genInputPane(), 0, 2);
         mainGrid.add(genOutputPane(), 1, 2);
+        mainGrid.add(genFilePane(), 0, 3, 2, 1);
 
-        Scene scene = new Scene(mainGrid, 800, 600);
+        Scene scene = new Scene(mainGrid, 800, 800);
 
         stage.setScene(scene);
         stage.show();
 
     }
 
+    /**
+     * MODIFIES: filesystem
+     * EFFECTS: Flushes pending saves when the application exits
+     */
+    @Override
+    public void stop() {
+        workerPool.shutdownNow();
+        soundScheduler.shutdownNow();
+        app.close();
+    }
+
     /**
      * MODIFIES: this
      * EFFECTS: Initializes fields
      */
     private void construct() {
         app = new XypherApp();
+        try {
+            app.attachJournal(new MutationJournal(FileHandler.DATA_FOLDER, FileHandler.getInstance(),
+                    MutationJournal.DEFAULT_SNAPSHOT_INTERVAL));
+        } catch (IOException e) {
+            System.out.println("Error recovering encoders");
+        }
         encoders = app.getEncoders();
+        workerPool = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(),
+                daemonThreads("xypher-worker"));
+        workerPool.execute(this::loadExecutionPlan);
+        soundScheduler = Executors.newSingleThreadScheduledExecutor(daemonThreads("xypher-sound"));
         try {
             synth = MidiSystem.getSynthesizer();
             synth.open();
@@ -126,25 +186,55 @@ public class JfxApp extends Application {
     }
 
     /**
-     * EFFECTS: plays a happy sound
+     * MODIFIES: filesystem
+     * EFFECTS: Loads the execution profile, calibrating and saving one on first launch; run on the worker pool so the
+     *          benchmark never holds up the window
+     */
+    private void loadExecutionPlan() {
+        try {
+            app.loadExecutionPlan();
+        } catch (IOException e) {
+            System.out.println("Error saving execution profile");
+        }
+    }
+
+    /**
+     * EFFECTS: Returns a factory for named daemon threads, so background work never keeps the app alive
+     */
+    private static ThreadFactory daemonThreads(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * EFFECTS: plays a happy sound, scheduling each note instead of sleeping between them
      */
     private void playEncodeSound() {
+        if (synth == null) {
+            return;
+        }
         MidiChannel channel = synth.getChannels()[0];
-        try {
-            channel.noteOn(83, 60);
-            Thread.sleep(400);
-            channel.noteOn(83, 60);
-            Thread.sleep(400);
-            channel.noteOn(83, 60);
-            Thread.sleep(150);
+        scheduleNote(0, () -> channel.noteOn(83, 60));
+        scheduleNote(400, () -> channel.noteOn(83, 60));
+        scheduleNote(800, () -> channel.noteOn(83, 60));
+        scheduleNote(950, () -> {
             channel.noteOff(83);
             channel.noteOn(80, 60);
-            Thread.sleep(150);
+        });
+        scheduleNote(1100, () -> {
             channel.noteOff(80);
-            channel.noteOn(88,60);
-        } catch (InterruptedException e) {
-            System.out.println("Midi interrupted");
-        }
+            channel.noteOn(88, 60);
+        });
+    }
+
+    /**
+     * EFFECTS: runs a midi action on the sound scheduler after delay milliseconds
+     */
+    private void scheduleNote(long delay, Runnable note) {
+        soundScheduler.schedule(note, delay, TimeUnit.MILLISECONDS);
     }
 
     /**
@@ -166,20 +256,10 @@ public class JfxApp extends Application {
     private VBox genEncoderTable() {
         final VBox box = new ColumnVBox();
 
-        for (Map.Entry<String, Encoder> entry: encoders.entrySet()) {
-            encoderSelectionBox.getItems().add(entry.getKey());
-        }
-        encoderSelectionBox.setOnAction(this::selectEncoder);
+        encoderPicker = new EncoderPicker(app, "All", true);
+        encoderPicker.selectedProperty().addListener((observable, old, name) -> selectEncoder(name));
 
-        encoders.addListener((MapChangeListener<String, Encoder>) change -> {
-            if (change.wasAdded()) {
-                encoderSelectionBox.getItems().add(change.getKey());
-            } else if (change.wasRemoved()) {
-                encoderSelectionBox.getItems().remove(change.getKey());
-            }
-        });
-
-        box.getChildren().addAll(new Text("Active Encoder:"), encoderSelectionBox, genEncoderTypePane());
+        box.getChildren().addAll(new Text("Active Encoder:"), encoderPicker, genEncoderTypePane());
         return box;
     }
 
@@ -189,26 +269,15 @@ public class JfxApp extends Application {
      */
     private VBox genConfigPane() {
         final VBox box = new ColumnVBox();
-        HBox titleBox = new HBox();
         Text titleText = new Text("Configure Sequence: ");
-        titleBox.getChildren().addAll(titleText, sequenceEncodersBox);
-        sequenceEncodersBox.setOnAction(actionEvent -> {
-            refreshSequenceContents();
-        });
-
-        for (Map.Entry<String, Encoder> entry: encoders.entrySet()) {
-            if (entry.getValue().getClass() == CipherSequence.class) {
-                sequenceEncodersBox.getItems().add(entry.getKey());
-            }
-        }
-
-        encoders.addListener(this::encoderChangeListener);
+        sequencePicker = new EncoderPicker(app, "Sequences", false);
+        sequencePicker.selectedProperty().addListener((observable, old, name) -> refreshSequenceContents());
 
         addEncoderToSeqButton.setOnAction(this::addEncoderToSeqUI);
         removeIndexField.setPromptText("Enter index to remove...");
         removeEncoderFromSeqButton.setOnAction(this::removeEncoderFromSeqUI);
 
-        box.getChildren().addAll(titleBox, sequenceContents, addEncoderToSeqButton,
+        box.getChildren().addAll(titleText, sequencePicker, sequenceContents, addEncoderToSeqButton,
                 removeIndexField, removeEncoderFromSeqButton);
         return box;
     }
@@ -235,6 +304,7 @@ public class JfxApp extends Application {
         saveButton.setOnAction(this::saveEncoderUI);
         loadButton.setOnAction(this::loadEncoderUI);
         loadPath.setPromptText("Name to load....");
+        watchDataBox.setOnAction(this::watchDataUI);
 
         final HBox addRemove = new HBox();
         addAllHJustify(addRemove, addButton, removeButton, saveButton);
@@ -242,7 +312,7 @@ public class JfxApp extends Application {
         addAllHJustify(loadBox, loadButton, loadPath);
 
         box.getChildren().addAll(titleText, encoderTypesBox, newSequenceNameField, newAffineCipherAField,
-                newAffineCipherBField, newCaesarCipherShiftField, addRemove, loadBox);
+                newAffineCipherBField, newCaesarCipherShiftField, addRemove, loadBox, watchDataBox);
         return box;
     }
 
@@ -253,22 +323,241 @@ public class JfxApp extends Application {
     private VBox genInputPane() {
         final VBox box = new ColumnVBox();
 
-        encodeButton.setOnAction((ActionEvent e) -> {
-            outputTextField.setText(activeEncoder.encode(inputTextField.getText()));
-            playEncodeSound();
-        });
-
-        decodeButton.setOnAction((ActionEvent e) -> {
-            outputTextField.setText(activeEncoder.decode(inputTextField.getText()));
-        });
+        encodeButton.setOnAction((ActionEvent e) -> startEncodeTask(true));
+        decodeButton.setOnAction((ActionEvent e) -> startEncodeTask(false));
+        cancelButton.setOnAction((ActionEvent e) -> runningTask.cancel(true));
+        cancelButton.setDisable(true);
+        liveBox.setOnAction((ActionEvent e) -> resetLiveEncoder());
         inputTextField.setPromptText("Type ALPHABETIC text here");
 
         HBox buttonBox = new HBox();
-        addAllHJustify(buttonBox, encodeButton, decodeButton);
-        box.getChildren().addAll(new Text("Input Text:"), inputTextField, buttonBox);
+        addAllHJustify(buttonBox, encodeButton, decodeButton, liveBox);
+        HBox progressBox = new HBox();
+        addAllHJustify(progressBox, encodeProgress, cancelButton);
+        box.getChildren().addAll(new Text("Input Text:"), inputTextField, buttonBox, progressBox);
+        return box;
+    }
+
+    /**
+     * MODIFIES: this
+     * EFFECTS: encodes or decodes the input text with the active encoder on the worker pool
+     */
+    private void startEncodeTask(boolean encoding) {
+        if (activeEncoder == null) {
+            return;
+        }
+        EncodeTask task = new EncodeTask(app, activeEncoder.toString(), inputTextField.getText(), encoding);
+        encodeProgress.progressProperty().bind(task.progressProperty());
+        task.setOnSucceeded(e -> finishEncodeTask(task));
+        task.setOnFailed(e -> finishEncodeTask(task));
+        task.setOnCancelled(e -> finishEncodeTask(task));
+        runningTask = task;
+        setEncodeRunning(true);
+        workerPool.execute(task);
+    }
+
+    /**
+     * MODIFIES: this
+     * EFFECTS: starts a new live encoding with the active encoder if live mode is on, otherwise stops live updates
+     */
+    private void resetLiveEncoder() {
+        liveText = null;
+        if (liveBox.isSelected() && activeEncoder != null) {
+            liveEncoder = new IncrementalEncoder(activeEncoder);
+            liveTimer.start();
+        } else {
+            liveEncoder = null;
+            liveTimer.stop();
+        }
+    }
+
+    /**
+     * MODIFIES: this
+     * EFFECTS: once per frame, brings the output up to date with any edits made to the input since the last frame
+     */
+    private void refreshLiveOutput() {
+        String text = inputTextField.getText();
+        if (liveEncoder != null && text != liveText) {
+            outputTextField.setText(liveEncoder.update(text));
+            liveText = text;
+        }
+    }
+
+    /**
+     * MODIFIES: this
+     * EFFECTS: shows the result of a finished task and re-enables the encode buttons
+     */
+    private void finishEncodeTask(EncodeTask task) {
+        runningTask = null;
+        setEncodeRunning(false);
+        if (task.getState() == Worker.State.SUCCEEDED) {
+            outputTextField.setText(task.getValue());
+            if (task.isEncoding()) {
+                playEncodeSound();
+            }
+        } else if (task.getState() == Worker.State.FAILED) {
+            Alert alert = new Alert(Alert.AlertType.ERROR);
+            alert.setContentText("Error transforming text: " + task.getException().getMessage());
+            alert.show();
+        }
+    }
+
+    /**
+     * MODIFIES: this
+     * EFFECTS: toggles the encode buttons and the cancel button while a task runs
+     */
+    private void setEncodeRunning(boolean running) {
+        encodeButton.setDisable(running);
+        decodeButton.setDisable(running);
+        encodeFileButton.setDisable(running);
+        decodeFileButton.setDisable(running);
+        cancelButton.setDisable(!running);
+    }
+
+    /**
+     * MODIFIES: this
+     * EFFECTS: generates the large file pane, which pages through an open file without loading it into memory
+     */
+    private VBox genFilePane() {
+        final VBox box = new ColumnVBox();
+
+        openFileButton.setOnAction(this::openFileUI);
+        encodeFileButton.setOnAction((ActionEvent e) -> startFileTask(true));
+        decodeFileButton.setOnAction((ActionEvent e) -> startFileTask(false));
+        showDecodedBox.setOnAction((ActionEvent e) -> filePages.refresh());
+        filePages.setCellFactory(list -> new FilePageCell());
+        filePages.setPrefHeight(200);
+
+        HBox buttonBox = new HBox();
+        addAllHJustify(buttonBox, openFileButton, encodeFileButton, decodeFileButton, showDecodedBox);
+        box.getChildren().addAll(fileNameText, buttonBox, filePages);
         return box;
     }
 
+    /**
+     * Renders one page of the open file; only pages scrolled into view are ever read or decoded
+     */
+    private class FilePageCell extends ListCell<Integer> {
+        FilePageCell() {
+            setWrapText(true);
+            setPrefWidth(0);
+        }
+
+        @Override
+        protected void updateItem(Integer page, boolean empty) {
+            super.updateItem(page, empty);
+            if (empty || page == null || openFile == null) {
+                setText(null);
+                return;
+            }
+            int start = page * PAGE_SIZE;
+            String text = openFile.subSequence(start, Math.min(start + PAGE_SIZE, openFile.length()));
+            if (showDecodedBox.isSelected() && activeEncoder != null) {
+                try {
+                    text = activeEncoder.decodeAt(text, start);
+                } catch (UnsupportedOperationException e) {
+                    text = e.getMessage();
+                }
+            }
+            setText(text);
+        }
+    }
+
+    /**
+     * MODIFIES: this
+     * EFFECTS: maps a file chosen by the user and shows its first pages
+     */
+    private void openFileUI(ActionEvent e) {
+        File file = new FileChooser().showOpenDialog(openFileButton.getScene().getWindow());
+        if (file == null) {
+            return;
+        }
+        try {
+            openFile = new MappedTextFile(file.toPath());
+        } catch (IOException ie) {
+            showError("Error opening file: " + ie.getMessage());
+            return;
+        }
+        fileNameText.setText(file.getName() + " (" + openFile.length() + " characters)");
+        int pages = (openFile.length() + PAGE_SIZE - 1) / PAGE_SIZE;
+        Integer[] indices = new Integer[pages];
+        for (int i = 0; i < pages; i++) {
+            indices[i] = i;
+        }
+        filePages.getItems().setAll(indices);
+    }
+
+    /**
+     * MODIFIES: this, filesystem
+     * EFFECTS: streams the open file through the active encoder into a file chosen by the user, on the worker pool
+     */
+    private void startFileTask(boolean encoding) {
+        if (openFile == null || activeEncoder == null) {
+            return;
+        }
+        File target = new FileChooser().showSaveDialog(openFileButton.getScene().getWindow());
+        if (target == null) {
+            return;
+        }
+        FileTranscoder transcoder;
+        try {
+            transcoder = new FileTranscoder(activeEncoder, encoding);
+        } catch (IllegalArgumentException iae) {
+            showError(iae.getMessage());
+            return;
+        }
+        Task<Void> task = new FileTask(transcoder, openFile, target);
+        encodeProgress.progressProperty().bind(task.progressProperty());
+        task.setOnSucceeded(e -> finishFileTask(task));
+        task.setOnFailed(e -> finishFileTask(task));
+        task.setOnCancelled(e -> finishFileTask(task));
+        runningTask = task;
+        setEncodeRunning(true);
+        workerPool.execute(task);
+    }
+
+    /**
+     * Streams a mapped file into a target file, reporting progress in characters
+     */
+    private static class FileTask extends Task<Void> {
+        private final FileTranscoder transcoder;
+        private final MappedTextFile source;
+        private final File target;
+
+        FileTask(FileTranscoder transcoder, MappedTextFile source, File target) {
+            this.transcoder = transcoder;
+            this.source = source;
+            this.target = target;
+        }
+
+        @Override
+        protected Void call() throws IOException {
+            transcoder.transcode(source.getPath(), target.toPath(), done -> updateProgress(done, source.length()));
+            return null;
+        }
+    }
+
+    /**
+     * MODIFIES: this
+     * EFFECTS: re-enables the encode buttons and reports a failed file task
+     */
+    private void finishFileTask(Task<Void> task) {
+        runningTask = null;
+        setEncodeRunning(false);
+        if (task.getState() == Worker.State.FAILED) {
+            showError("Error transforming file: " + task.getException().getMessage());
+        }
+    }
+
+    /**
+     * EFFECTS: shows an error alert with the given message
+     */
+    private static void showError(String message) {
+        Alert alert = new Alert(Alert.AlertType.ERROR);
+        alert.setContentText(message);
+        alert.show();
+    }
+
     /**
      * MODIFIES: this
      * EFFECTS: generates the text output pane
@@ -297,26 +586,15 @@ public class JfxApp extends Application {
         }
     }
 
-    /**
-     * MODIFIES: this
-     * EFFECTS: updates sequenceEncoderBox
-     */
-    private void encoderChangeListener(MapChangeListener.Change<? extends String,? extends Encoder> change) {
-        if (change.wasRemoved()) {
-            sequenceEncodersBox.getItems().remove(change.getKey());
-        } else if (change.wasAdded() && change.getKey().indexOf("Sequence") != -1) {
-            sequenceEncodersBox.getItems().add(change.getKey());
-        }
-    }
-
     /**
      * MODIFIES: this
      * EFFECTS: Sets the active encoder
      */
-    private void selectEncoder(ActionEvent e) {
-        activeEncoder = encoders.get(encoderSelectionBox.getSelectionModel().getSelectedItem());
-        titleContextText.setText(encoderSelectionBox.getSelectionModel().getSelectedItem());
-        System.out.println("Active encoder changed to " + activeEncoder.toString()); //todo debugprint
+    private void selectEncoder(String name) {
+        activeEncoder = name == null ? null : encoders.get(name);
+        titleContextText.setText(name);
+        resetLiveEncoder();
+        System.out.println("Active encoder changed to " + name); //todo debugprint
     }
 
     /**
@@ -371,7 +649,7 @@ public class JfxApp extends Application {
      * EFFECTS: tries to remove an encoder from app
      */
     private void removeEncoderUI(ActionEvent e) {
-        app.deleteEncoder(encoderSelectionBox.getSelectionModel().getSelectedItem());
+        app.deleteEncoder(encoderPicker.getSelected());
     }
 
     /**
@@ -390,28 +668,48 @@ public class JfxApp extends Application {
 
     /**
      * MODIFIES: this
-     * EFFECTS: saves an encoder to file
+     * EFFECTS: starts or stops reloading encoder files changed by other processes
      */
-    private void saveEncoderUI(ActionEvent e) {
-        Alert alert = new Alert(Alert.AlertType.ERROR);
-        alert.setContentText("Error writing file");
+    private void watchDataUI(ActionEvent e) {
         try {
-            app.saveEncoder(activeEncoder.toString());
+            if (watchDataBox.isSelected()) {
+                app.startWatching(Platform::runLater);
+            } else {
+                app.stopWatching();
+            }
         } catch (IOException ie) {
+            watchDataBox.setSelected(false);
+            Alert alert = new Alert(Alert.AlertType.ERROR);
+            alert.setContentText("Error watching data folder");
             alert.show();
         }
     }
 
+    /**
+     * MODIFIES: this
+     * EFFECTS: saves an encoder to file
+     */
+    private void saveEncoderUI(ActionEvent e) {
+        app.saveEncoderAsync(activeEncoder.toString()).exceptionally(ex -> {
+            Platform.runLater(() -> {
+                Alert alert = new Alert(Alert.AlertType.ERROR);
+                alert.setContentText("Error writing file");
+                alert.show();
+            });
+            return null;
+        });
+    }
+
     /**
      * MODIFIES: this
      * EFFECTS: adds the active cipher to the chosen sequence
      */
     private void addEncoderToSeqUI(ActionEvent e) {
         if (activeEncoder.getClass() != CipherSequence.class) {
-            app.getSequence(sequenceEncodersBox.getSelectionModel().getSelectedItem())
-                    .pushCipher((Cipher) activeEncoder);
+            app.pushCipher(sequencePicker.getSelected(), activeEncoder.toString());
         }
         refreshSequenceContents();
+        resetLiveEncoder();
     }
 
     /**
@@ -419,9 +717,10 @@ public class JfxApp extends Application {
      * EFFECTS: removes the cipher at removeIndexField index from sequence
      */
     private void removeEncoderFromSeqUI(ActionEvent e) {
-        app.getSequence(sequenceEncodersBox.getSelectionModel().getSelectedItem())
-                .removeCipher(Integer.parseInt(removeIndexField.getText()));
+        app.removeCipher(sequencePicker.getSelected(),
+                Integer.parseInt(removeIndexField.getText()));
         refreshSequenceContents();
+        resetLiveEncoder();
     }
 
     /**
@@ -441,7 +740,10 @@ public class JfxApp extends Application {
      */
     private void refreshSequenceContents() {
         sequenceContents.getItems().clear();
-        for (Cipher c : app.getSequence(sequenceEncodersBox.getSelectionModel().getSelectedItem()).getCipherList()) {
+        if (sequencePicker.getSelected() == null) {
+            return;
+        }
+        for (Cipher c : app.getSequence(sequencePicker.getSelected()).getCipherList()) {
             sequenceContents.getItems().add(c.toString());
         }
     }
@@ -0,0 +1,65 @@
+package metrics;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import model.ciphers.CaesarCipher;
+import org.junit.jupiter.api.Test;
+import persistence.FileHandler;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link FileIoEvent} as emitted by {@link FileHandler}
+ */
+public class FileIoEventTest {
+
+    @Test
+    void recordedTest() throws Exception {
+        new File("./data/CaesarCipher-21" + FileHandler.FILE_EXT).deleteOnExit();
+        Path dump = Files.createTempFile("xypher", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(FileIoEvent.NAME);
+            recording.start();
+            FileHandler.getInstance().saveEncoder(new CaesarCipher(21));
+            FileHandler.getInstance().loadEncoder("CaesarCipher-21");
+            recording.stop();
+            recording.dump(dump);
+        }
+
+        List<RecordedEvent> events = new ArrayList<>();
+        for (RecordedEvent event : RecordingFile.readAllEvents(dump)) {
+            if (event.getEventType().getName().equals(FileIoEvent.NAME)) {
+                events.add(event);
+            }
+        }
+        Files.delete(dump);
+        assertEquals(2, events.size());
+        assertEquals("save", events.get(0).getString("operation"));
+        assertEquals("load", events.get(1).getString("operation"));
+        assertTrue(events.get(1).getString("path").endsWith("CaesarCipher-21.json"));
+        assertEquals(new File("./data/CaesarCipher-21.json").length(), events.get(1).getLong("bytes"));
+    }
+
+    @Test
+    void disabledTest() throws Exception {
+        Path dump = Files.createTempFile("xypher", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.disable(FileIoEvent.NAME);
+            recording.start();
+            FileHandler.getInstance().loadEncoder("AtbashCipher");
+            recording.stop();
+            recording.dump(dump);
+        }
+        for (RecordedEvent event : RecordingFile.readAllEvents(dump)) {
+            assertNotEquals(FileIoEvent.NAME, event.getEventType().getName());
+        }
+        Files.delete(dump);
+    }
+}
@@ -0,0 +1,50 @@
+package metrics;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link LatencyHistogram}
+ */
+public class LatencyHistogramTest {
+    private LatencyHistogram histogram;
+
+    @BeforeEach
+    void runBefore() {
+        histogram = new LatencyHistogram();
+    }
+
+    @Test
+    void emptyTest() {
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getPercentile(0.99));
+    }
+
+    @Test
+    void bucketTest() {
+        for (long value : new long[] {0, 1, 7, 8, 15, 16, 17, 1000, 123456789, Long.MAX_VALUE}) {
+            int index = LatencyHistogram.indexOf(value);
+            assertTrue(LatencyHistogram.upperBound(index) >= value);
+            assertTrue(index == 0 || LatencyHistogram.upperBound(index - 1) < value);
+        }
+        assertEquals(0, LatencyHistogram.indexOf(-5));
+    }
+
+    @Test
+    void percentileTest() {
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L);
+        }
+        assertEquals(1000, histogram.getCount());
+        assertWithin(500000, histogram.getPercentile(0.5));
+        assertWithin(990000, histogram.getPercentile(0.99));
+        assertWithin(999000, histogram.getPercentile(0.999));
+        assertWithin(1000000, histogram.getPercentile(1));
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        assertTrue(actual >= expected && actual <= expected * 1.125, "expected ~" + expected + " was " + actual);
+    }
+}
@@ -0,0 +1,75 @@
+package metrics;
+
+import model.CipherSequence;
+import model.ciphers.AtbashCipher;
+import model.ciphers.CaesarCipher;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link MetricsRegistry} and {@link EncoderMetrics}
+ */
+public class MetricsRegistryTest {
+
+    @AfterEach
+    void runAfter() {
+        CipherSequence.setStageObserver(null);
+    }
+
+    @Test
+    void singletonTest() {
+        assertSame(MetricsRegistry.getInstance(), MetricsRegistry.getInstance());
+    }
+
+    @Test
+    void recordTest() throws Exception {
+        EncoderMetrics metrics = MetricsRegistry.getInstance().forEncoder("MetricsTestCipher", true);
+        assertSame(metrics, MetricsRegistry.getInstance().forEncoder("MetricsTestCipher", true));
+        assertNotSame(metrics, MetricsRegistry.getInstance().forEncoder("MetricsTestCipher", false));
+        metrics.record(10, 2000);
+        metrics.record(30, 2000);
+
+        assertEquals(2, metrics.getCalls());
+        assertEquals(40, metrics.getChars());
+        assertEquals(10000000, metrics.getCharsPerSecond(), 1);
+        assertEquals(2047, metrics.getP99Nanos());
+        ObjectName name = new ObjectName("xypher:type=Encoder,name=\"MetricsTestCipher\",direction=encode");
+        assertEquals(2L, ManagementFactory.getPlatformMBeanServer().getAttribute(name, "Calls"));
+    }
+
+    @Test
+    void removeTest() throws Exception {
+        MetricsRegistry registry = MetricsRegistry.getInstance();
+        registry.forEncoder("MetricsRemovedCipher", true).record(10, 2000);
+        registry.forEncoder("MetricsRemovedCipher", false).record(10, 2000);
+        ObjectName encode = new ObjectName("xypher:type=Encoder,name=\"MetricsRemovedCipher\",direction=encode");
+        ObjectName decode = new ObjectName("xypher:type=Encoder,name=\"MetricsRemovedCipher\",direction=decode");
+        assertTrue(ManagementFactory.getPlatformMBeanServer().isRegistered(encode));
+
+        registry.remove("MetricsRemovedCipher");
+        assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(encode));
+        assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(decode));
+        assertFalse(registry.report().contains("MetricsRemovedCipher"));
+        assertEquals(0, registry.forEncoder("MetricsRemovedCipher", true).getCalls());
+        assertTrue(ManagementFactory.getPlatformMBeanServer().isRegistered(encode));
+        registry.remove("MetricsRemovedCipher");
+    }
+
+    @Test
+    void stageTest() {
+        CipherSequence sequence = new CipherSequence("MetricsTestSequence");
+        sequence.pushCipher(new AtbashCipher());
+        sequence.pushCipher(new CaesarCipher(3));
+        CipherSequence.setStageObserver(MetricsRegistry.getInstance());
+        assertEquals("HELLO", sequence.decode(sequence.encode("HELLO")));
+
+        String report = MetricsRegistry.getInstance().report();
+        assertTrue(report.contains("MetricsTestSequence[0] AtbashCipher"));
+        assertTrue(report.contains("MetricsTestSequence[1] CaesarCipher-3"));
+    }
+}
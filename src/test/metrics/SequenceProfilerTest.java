@@ -0,0 +1,73 @@
+package metrics;
+
+import model.CipherSequence;
+import model.ciphers.AtbashCipher;
+import model.ciphers.CaesarCipher;
+import model.ciphers.Cipher;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link SequenceProfiler} and profiling in {@link CipherSequence}
+ */
+public class SequenceProfilerTest {
+
+    @AfterEach
+    void runAfter() {
+        CipherSequence.setStageProfiler(null);
+    }
+
+    @Test
+    void stageProfiledTest() {
+        CipherSequence sequence = new CipherSequence("ProfiledSequence");
+        sequence.pushCipher(new AtbashCipher());
+        sequence.pushCipher(new CaesarCipher(3));
+        List<long[]> runs = new ArrayList<>();
+        CipherSequence.setStageProfiler((seq, index, cipher, encoding, charsIn, charsOut, nanos, allocatedBytes) -> {
+            assertSame(sequence, seq);
+            assertSame(sequence.getCipherList().get(index), cipher);
+            runs.add(new long[] {index, encoding ? 1 : 0, charsIn, charsOut, nanos, allocatedBytes});
+        });
+        String text = "Profile every stage of this text";
+        assertEquals(text.toUpperCase(), sequence.decode(sequence.encode(text)));
+
+        assertEquals(4, runs.size());
+        assertEquals("0 1 1 0", runs.get(0)[0] + " " + runs.get(1)[0] + " " + runs.get(2)[0] + " " + runs.get(3)[0]);
+        assertEquals("1 1 0 0", runs.get(0)[1] + " " + runs.get(1)[1] + " " + runs.get(2)[1] + " " + runs.get(3)[1]);
+        for (long[] run : runs) {
+            assertEquals(text.length(), run[2]);
+            assertEquals(text.length(), run[3]);
+            assertTrue(run[4] >= 0);
+            assertTrue(run[5] == -1 || run[5] > 0);
+        }
+    }
+
+    @Test
+    void reportTest() {
+        CipherSequence sequence = new CipherSequence("ReportedSequence");
+        Cipher caesar = new CaesarCipher(7);
+        sequence.pushCipher(caesar);
+        sequence.pushCipher(new AtbashCipher());
+        SequenceProfiler profiler = new SequenceProfiler();
+        CipherSequence.setStageProfiler(profiler);
+        sequence.encode("first call");
+        sequence.encode("second");
+        CipherSequence.setStageProfiler(null);
+        sequence.encode("not profiled");
+
+        String report = profiler.report();
+        assertTrue(report.contains("ReportedSequence[0] CaesarCipher-7"));
+        assertTrue(report.contains("ReportedSequence[1] AtbashCipher"));
+        assertFalse(report.contains("decode"));
+        String row = report.split("\n")[1];
+        assertTrue(row.matches("ReportedSequence\\[0] CaesarCipher-7\\s+encode\\s+2 .*\\s16\\s+16 .*"), row);
+
+        profiler.reset();
+        assertEquals(1, profiler.report().split("\n").length);
+    }
+}
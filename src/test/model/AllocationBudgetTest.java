@@ -0,0 +1,103 @@
+package model;
+
+import model.ciphers.AffineCipher;
+import model.ciphers.AtbashCipher;
+import model.ciphers.CaesarCipher;
+import model.ciphers.Cipher;
+import model.ciphers.Rot13Cipher;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ui.XypherApp;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Allocation regression tests for the encode hot path, measured with {@link AllocationMeter}.
+ *
+ * Whole-text calls may allocate their output and nothing in proportion to it beyond the budget; single character
+ * calls may not allocate at all. Whole-text calls go through {@link XypherApp} so the budget covers the wiring the app
+ * ships with, metrics included.
+ */
+public class AllocationBudgetTest {
+    private static final int ITERATIONS = 50;
+
+    private XypherApp app;
+    private List<Encoder> encoders;
+    private String text;
+
+    @BeforeEach
+    void runBefore() {
+        assumeTrue(AllocationMeter.isSupported(), "JVM does not count allocated bytes");
+        app = new XypherApp();
+        List<Cipher> ciphers = Arrays.asList(new AtbashCipher(), new Rot13Cipher(), new CaesarCipher(5),
+                new AffineCipher(5, 8));
+        CipherSequence sequence = new CipherSequence("BudgetSequence");
+        ciphers.forEach(sequence::pushCipher);
+        encoders = new ArrayList<>(ciphers);
+        encoders.add(sequence);
+        encoders.forEach(app::addEncoder);
+        StringBuilder sb = new StringBuilder();
+        while (sb.length() < 16 * 1024) {
+            sb.append("Every cipher, every sequence: 26 letters & the rest.\n");
+        }
+        text = sb.toString();
+    }
+
+    @AfterEach
+    void runAfter() {
+        if (app != null) {
+            app.close();
+        }
+    }
+
+    @Test
+    void encodeBudgetTest() {
+        for (Encoder encoder : encoders) {
+            String name = encoder.toString();
+            double encodeCost = AllocationMeter.bytesPerChar(() -> app.encode(name, text), text.length(), ITERATIONS);
+            double decodeCost = AllocationMeter.bytesPerChar(() -> app.decode(name, text), text.length(), ITERATIONS);
+            assertTrue(encodeCost <= AllocationMeter.budget(), name + " encode allocates " + encodeCost + " B/char");
+            assertTrue(decodeCost <= AllocationMeter.budget(), name + " decode allocates " + decodeCost + " B/char");
+        }
+    }
+
+    @Test
+    void singleCharTest() {
+        for (Encoder encoder : encoders) {
+            double cost = AllocationMeter.bytesPerChar(() -> {
+                for (int i = 0; i < text.length(); i++) {
+                    encoder.decodeChar(encoder.encodeChar(text.charAt(i)));
+                }
+            }, text.length(), ITERATIONS);
+            assertTrue(cost < 0.01, encoder + " single character calls allocate " + cost + " B/char");
+        }
+    }
+
+    @Test
+    void perLetterStringsOverBudgetTest() {
+        Cipher perLetter = new Cipher("PerLetterCipher") {
+            @Override
+            protected String encodeLetter(String letter) {
+                return letter;
+            }
+
+            @Override
+            protected String decodeLetter(String letter) {
+                return letter;
+            }
+
+            @Override
+            public String encode(String text) {
+                return transformString(text, this::encodeLetter);
+            }
+        };
+        double cost = AllocationMeter.bytesPerChar(() -> perLetter.encode(text), text.length(), ITERATIONS);
+        assertTrue(cost > AllocationMeter.budget(), "harness missed per-letter allocation: " + cost + " B/char");
+    }
+}
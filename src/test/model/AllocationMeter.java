@@ -0,0 +1,64 @@
+package model;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Measures the bytes the calling thread allocates while running a call, for allocation budget tests.
+ *
+ * The budget, in bytes allocated per character of input, is read from the {@value #BUDGET_PROPERTY} system
+ * property so it can be tightened or relaxed per JVM without editing the tests.
+ */
+public final class AllocationMeter {
+    public static final String BUDGET_PROPERTY = "xypher.allocation.bytesPerChar";
+    /**
+     * One output char[] plus the String copied from it, with room for fixed per-call overhead
+     */
+    public static final double DEFAULT_BUDGET = 4.5;
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private AllocationMeter() {
+    }
+
+    /**
+     * EFFECTS: Returns true if the JVM counts the bytes each thread allocates
+     */
+    public static boolean isSupported() {
+        return THREADS instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) THREADS).isThreadAllocatedMemorySupported()
+                && ((com.sun.management.ThreadMXBean) THREADS).isThreadAllocatedMemoryEnabled();
+    }
+
+    /**
+     * EFFECTS: Returns the configured budget, in bytes per character
+     */
+    public static double budget() {
+        return Double.parseDouble(System.getProperty(BUDGET_PROPERTY, String.valueOf(DEFAULT_BUDGET)));
+    }
+
+    /**
+     * REQUIRES: isSupported(), chars > 0, iterations > 0
+     * EFFECTS: Runs call iterations times to warm it up, then returns the bytes it allocates per character over
+     *          another iterations runs
+     *
+     * @param call The call to measure
+     * @param chars The number of characters one run of call processes
+     * @param iterations The number of runs to warm up with and to measure
+     * @return The bytes allocated per character
+     */
+    public static double bytesPerChar(Runnable call, int chars, int iterations) {
+        for (int i = 0; i < iterations; i++) {
+            call.run();
+        }
+        long before = allocatedBytes();
+        for (int i = 0; i < iterations; i++) {
+            call.run();
+        }
+        return (double) (allocatedBytes() - before) / ((long) chars * iterations);
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) THREADS).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
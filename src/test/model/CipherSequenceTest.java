@@ -120,6 +120,35 @@ public class CipherSequenceTest {
         assertEquals(testString, sequence.decode(sequence.encode(testString)));
     }
 
+    @Test
+    void editWhileFusingTest() {
+        Cipher editing = new Cipher("EditingCipher") {
+            private int calls;
+
+            @Override
+            protected String encodeLetter(String letter) {
+                return letter;
+            }
+
+            @Override
+            protected String decodeLetter(String letter) {
+                return letter;
+            }
+
+            @Override
+            public char encodeChar(char c) {
+                if (++calls == 26) {
+                    sequence.removeCipher(0);
+                }
+                return c;
+            }
+        };
+        sequence.pushCipher(CAESAR1);
+        sequence.pushCipher(editing);
+        assertEquals('B', sequence.encodeChar('A'));
+        assertEquals('A', sequence.encodeChar('A'));
+    }
+
     @Test
     void nameTest() {
         assertEquals("Test Sequence", sequence.toString());
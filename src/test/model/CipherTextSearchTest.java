@@ -0,0 +1,88 @@
+package model;
+
+import model.ciphers.AffineCipher;
+import model.ciphers.CaesarCipher;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link CipherTextSearch}
+ */
+public class CipherTextSearchTest {
+    private static final String PLAIN = "She sells sea shells by the sea shore, and her shells are sea shells.";
+    private CipherSequence sequence;
+    private String cipherText;
+    private CipherTextSearch search;
+
+    @BeforeEach
+    void runBefore() {
+        sequence = new CipherSequence("TestSearchSequence");
+        sequence.pushCipher(new CaesarCipher(7));
+        sequence.pushCipher(new AffineCipher(5, 8));
+        cipherText = sequence.encode(PLAIN);
+        search = new CipherTextSearch(sequence, Arrays.asList("shells", "he", "sea shore", "hers"));
+    }
+
+    @Test
+    void searchTest() {
+        List<CipherTextSearch.Match> matches = search.search(cipherText, 100);
+        assertEquals(expectedCount("shells") + expectedCount("he") + expectedCount("sea shore"), matches.size());
+        for (CipherTextSearch.Match match : matches) {
+            String found = PLAIN.substring((int) match.getOffset(), (int) match.getOffset() + match.getLength());
+            assertTrue(found.equalsIgnoreCase(match.getTerm()));
+        }
+        assertEquals(1, search.search(cipherText, 1).size());
+        assertEquals(0, search.search(cipherText, 0).size());
+    }
+
+    @Test
+    void streamTest() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 3000; i++) {
+            sb.append(cipherText);
+        }
+        List<CipherTextSearch.Match> streamed = search.search(new StringReader(sb.toString()), Integer.MAX_VALUE);
+        assertEquals(search.search(sb, Integer.MAX_VALUE).size(), streamed.size());
+        assertEquals(3000 * search.search(cipherText, 100).size(), streamed.size());
+        CipherTextSearch.Match last = streamed.get(streamed.size() - 1);
+        assertEquals("shells", last.getTerm());
+        assertEquals(sb.length() - 7, last.getOffset());
+    }
+
+    @Test
+    void contextTest() {
+        CipherTextSearch shore = new CipherTextSearch(sequence, Collections.singletonList("SEA SHORE"));
+        CipherTextSearch.Match match = shore.search(cipherText, 10).get(0);
+        assertEquals(PLAIN.indexOf("sea shore"), match.getOffset());
+        assertEquals("THE SEA SHORE, AN", shore.context(cipherText, match, 4));
+        assertEquals("SHE SEL", shore.context(cipherText, new CipherTextSearch.Match(0, "She", 3), 4)
+                .substring(0, 7));
+    }
+
+    @Test
+    void invalidTest() {
+        try {
+            new CipherTextSearch(sequence, Collections.singletonList(""));
+            fail("Exception not thrown");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    private static int expectedCount(String term) {
+        int count = 0;
+        String upper = PLAIN.toUpperCase();
+        for (int i = upper.indexOf(term.toUpperCase()); i >= 0; i = upper.indexOf(term.toUpperCase(), i + 1)) {
+            count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,78 @@
+package model;
+
+import model.ciphers.AtbashCipher;
+import model.ciphers.CaesarCipher;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link DecodedCharSequence} and {@link Encoder#decodedView}
+ */
+public class DecodedCharSequenceTest {
+    private static final String PLAIN = "HEADER: ATTACK AT DAWN, 42 MEN";
+    private CipherSequence sequence;
+    private String cipherText;
+
+    @BeforeEach
+    void runBefore() {
+        sequence = new CipherSequence("TestViewSequence");
+        sequence.pushCipher(new CaesarCipher(3));
+        sequence.pushCipher(new AtbashCipher());
+        cipherText = sequence.encode(PLAIN);
+    }
+
+    @Test
+    void viewTest() {
+        CharSequence view = sequence.decodedView(cipherText);
+        assertTrue(view instanceof DecodedCharSequence);
+        assertEquals(PLAIN.length(), view.length());
+        assertEquals('H', view.charAt(0));
+        assertEquals(',', view.charAt(22));
+        assertEquals("ATTACK", view.subSequence(8, 14).toString());
+        assertEquals("TACK", view.subSequence(8, 14).subSequence(2, 6).toString());
+        assertEquals(PLAIN, view.toString());
+    }
+
+    @Test
+    void regexTest() {
+        Matcher matcher = Pattern.compile("AT (\\w+)").matcher(sequence.decodedView(cipherText));
+        assertTrue(matcher.find());
+        assertEquals("DAWN", matcher.group(1));
+        assertTrue(Pattern.compile("^HEADER").matcher(new CaesarCipher(5).decodedView(
+                new CaesarCipher(5).encode(PLAIN))).lookingAt());
+    }
+
+    @Test
+    void fusedTableTest() {
+        for (char c = 'A'; c <= 'Z'; c++) {
+            assertEquals(sequence.encode(String.valueOf(c)).charAt(0), sequence.encodeChar(c));
+            assertEquals(c, sequence.decodeChar(sequence.encodeChar(c)));
+        }
+        sequence.pushCipher(new CaesarCipher(1));
+        assertEquals(sequence.encode("Q").charAt(0), sequence.encodeChar('q'));
+        assertEquals('7', sequence.decodeChar('7'));
+        assertEquals('q', new CipherSequence("EmptySequence").encodeChar('q'));
+    }
+
+    @Test
+    void rangeTest() {
+        CharSequence view = sequence.decodedView(cipherText);
+        try {
+            view.charAt(PLAIN.length());
+            fail("Exception not thrown");
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+        try {
+            view.subSequence(5, 4);
+            fail("Exception not thrown");
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+    }
+}
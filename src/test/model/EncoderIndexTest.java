@@ -0,0 +1,113 @@
+package model;
+
+import model.ciphers.AtbashCipher;
+import model.ciphers.CaesarCipher;
+import model.ciphers.Cipher;
+import model.ciphers.Rot13Cipher;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link EncoderIndex}
+ */
+public class EncoderIndexTest {
+    private EncoderIndex index;
+
+    @BeforeEach
+    void runBefore() {
+        index = new EncoderIndex();
+        index.put("CaesarCipher-5", new CaesarCipher(5));
+        index.put("CaesarCipher-12", new CaesarCipher(12));
+        index.put("AtbashCipher", new AtbashCipher());
+        index.put("CaesarSequence", new CipherSequence("CaesarSequence"));
+        index.put("Rot13Cipher", new Rot13Cipher());
+    }
+
+    @Test
+    void prefixTest() {
+        assertEquals(5, index.count(""));
+        assertEquals(3, index.count("Caesar"));
+        assertEquals(0, index.count("Vigenere"));
+        assertEquals(Arrays.asList("CaesarCipher-12", "CaesarCipher-5", "CaesarSequence"),
+                index.find("Caesar", Encoder.class, 0, 10));
+        assertEquals(Collections.emptyList(), index.find("Vigenere", Encoder.class, 0, 10));
+    }
+
+    @Test
+    void typeFilterTest() {
+        assertEquals(Collections.singletonList("CaesarSequence"), index.find("", CipherSequence.class, 0, 10));
+        assertEquals(Arrays.asList("CaesarCipher-12", "CaesarCipher-5"), index.find("C", Cipher.class, 0, 10));
+        assertEquals(Arrays.asList("CaesarCipher-12", "CaesarCipher-5"),
+                index.find("C", CaesarCipher.class, 0, 10));
+        assertEquals(Collections.singletonList("Rot13Cipher"), index.find("R", CaesarCipher.class, 0, 10));
+    }
+
+    @Test
+    void paginationTest() {
+        assertEquals(Arrays.asList("AtbashCipher", "CaesarCipher-12"), index.find("", Encoder.class, 0, 2));
+        assertEquals(Arrays.asList("CaesarCipher-5", "CaesarSequence"), index.find("", Encoder.class, 2, 2));
+        assertEquals(Collections.singletonList("Rot13Cipher"), index.find("", Encoder.class, 4, 2));
+        assertEquals(Collections.singletonList("CaesarCipher-5"), index.find("", Cipher.class, 2, 1));
+        assertEquals(Collections.emptyList(), index.find("", Encoder.class, 5, 2));
+    }
+
+    @Test
+    void removeTest() {
+        index.remove("CaesarCipher-5");
+        index.remove("NotIndexed");
+        index.remove("Caesar");
+        assertEquals(4, index.count(""));
+        assertEquals(1, index.count("CaesarC"));
+        index.remove("CaesarCipher-12");
+        assertEquals(0, index.count("CaesarC"));
+        assertEquals(Collections.singletonList("CaesarSequence"), index.find("Caesar", Encoder.class, 0, 10));
+
+        index.put("CaesarSequence", new CaesarCipher(1));
+        assertEquals(3, index.count(""));
+        assertEquals(Collections.emptyList(), index.find("", CipherSequence.class, 0, 10));
+
+        index.clear();
+        assertEquals(0, index.count(""));
+    }
+
+    @Test
+    void completeTest() {
+        assertEquals("CaesarCipher-", index.complete("CaesarC"));
+        assertEquals("Caesar", index.complete("Cae"));
+        assertEquals("Rot13Cipher", index.complete("R"));
+        assertEquals("Vig", index.complete("Vig"));
+    }
+
+    @Test
+    void containingTest() {
+        CipherSequence sequence = new CipherSequence("CaesarSequence");
+        sequence.pushCipher(new CaesarCipher(5));
+        sequence.pushCipher(new AtbashCipher());
+        sequence.pushCipher(new CaesarCipher(5));
+        index.put("CaesarSequence", sequence);
+        CipherSequence other = new CipherSequence("OtherSequence");
+        other.pushCipher(new CaesarCipher(5));
+        index.put("OtherSequence", other);
+
+        assertEquals(Arrays.asList("CaesarSequence", "OtherSequence"), index.findContaining("CaesarCipher-5", 0, 10));
+        assertEquals(Collections.singletonList("OtherSequence"), index.findContaining("CaesarCipher-5", 1, 10));
+        assertEquals(2, index.countContaining("CaesarCipher-5"));
+        assertEquals(0, index.countContaining("Rot13Cipher"));
+
+        sequence.removeCipher(0);
+        index.put("CaesarSequence", sequence);
+        assertEquals(2, index.countContaining("CaesarCipher-5"));
+        sequence.removeCipher(1);
+        index.put("CaesarSequence", sequence);
+        assertEquals(Collections.singletonList("OtherSequence"), index.findContaining("CaesarCipher-5", 0, 10));
+
+        index.remove("OtherSequence");
+        assertEquals(Collections.emptyList(), index.findContaining("CaesarCipher-5", 0, 10));
+        assertEquals(Collections.singletonList("CaesarSequence"), index.findContaining("AtbashCipher", 0, 10));
+    }
+}
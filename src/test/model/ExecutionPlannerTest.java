@@ -0,0 +1,115 @@
+package model;
+
+import model.ciphers.AffineCipher;
+import model.ciphers.CaesarCipher;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import persistence.FileHandler;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link ExecutionPlanner}
+ */
+public class ExecutionPlannerTest {
+    private ExecutionPlanner planner;
+    private CaesarCipher cipher;
+    private CipherSequence sequence;
+    private String text;
+
+    @BeforeEach
+    void runBefore() {
+        planner = ExecutionPlanner.getInstance();
+        cipher = new CaesarCipher(11);
+        sequence = new CipherSequence("PlannedSequence");
+        sequence.pushCipher(cipher);
+        sequence.pushCipher(new AffineCipher(7, 2));
+        StringBuilder sb = new StringBuilder();
+        while (sb.length() < 100000) {
+            sb.append("Mixed Case, digits 0-9 and punctuation! ");
+        }
+        text = sb.toString();
+    }
+
+    @AfterEach
+    void runAfter() {
+        planner.setForkJoinThreshold(ExecutionPlanner.DEFAULT_FORK_JOIN_THRESHOLD);
+    }
+
+    @Test
+    void planTest() {
+        Encoder positionDependent = new Encoder() {
+            @Override
+            public String encode(String text) {
+                return text;
+            }
+
+            @Override
+            public String decode(String text) {
+                return text;
+            }
+        };
+        planner.setForkJoinThreshold(1000);
+        assertEquals(ExecutionPlanner.Strategy.STAGED, planner.plan(positionDependent, 5000));
+        assertEquals(ExecutionPlanner.Strategy.TABLE, planner.plan(cipher, 999));
+        boolean parallel = Runtime.getRuntime().availableProcessors() > 1;
+        assertEquals(parallel ? ExecutionPlanner.Strategy.FORK_JOIN : ExecutionPlanner.Strategy.TABLE,
+                planner.plan(sequence, 1000));
+    }
+
+    @Test
+    void forkJoinTest() {
+        String tableEncoded = cipher.encode(text);
+        String tableSequence = sequence.encode(text);
+        planner.setForkJoinThreshold(1);
+        assertEquals(tableEncoded, cipher.encode(text));
+        assertEquals(tableSequence, sequence.encode(text));
+        assertEquals(text.toUpperCase(), sequence.decode(sequence.encode(text)));
+        assertEquals(text.toUpperCase(), cipher.decode(tableEncoded));
+        assertEquals("", planner.transform(cipher, "", true));
+    }
+
+    @Test
+    void profileTest() throws IOException {
+        Path profile = Files.createTempFile("xypher", ".profile");
+        try {
+            assertFalse(ExecutionPlanner.PROFILE_FILE.endsWith(FileHandler.FILE_EXT));
+            assertFalse(planner.loadProfile(profile));
+            planner.setForkJoinThreshold(12345);
+            planner.saveProfile(profile);
+            planner.setForkJoinThreshold(1);
+            assertTrue(planner.loadProfile(profile));
+            assertEquals(12345, planner.getForkJoinThreshold());
+
+            Files.write(profile, "{\"forkJoinThreshold\":77,\"parallelism\":-1}".getBytes(StandardCharsets.UTF_8));
+            assertFalse(planner.loadProfile(profile));
+            Files.write(profile, "not json {".getBytes(StandardCharsets.UTF_8));
+            assertFalse(planner.loadProfile(profile));
+        } finally {
+            Files.delete(profile);
+        }
+    }
+
+    @Test
+    void calibrateTest() throws IOException {
+        Path profile = Files.createTempFile("xypher", ".profile");
+        Files.delete(profile);
+        try {
+            planner.loadOrCalibrate(profile);
+            int threshold = planner.getForkJoinThreshold();
+            assertTrue(threshold > 0);
+            assertTrue(Files.exists(profile));
+            planner.setForkJoinThreshold(1);
+            planner.loadOrCalibrate(profile);
+            assertEquals(threshold, planner.getForkJoinThreshold());
+        } finally {
+            Files.deleteIfExists(profile);
+        }
+    }
+}
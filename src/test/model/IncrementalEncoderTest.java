@@ -0,0 +1,98 @@
+package model;
+
+import model.ciphers.AtbashCipher;
+import model.ciphers.CaesarCipher;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link IncrementalEncoder}
+ */
+public class IncrementalEncoderTest {
+    private CountingEncoder counter;
+    private IncrementalEncoder incremental;
+
+    /**
+     * An encoder that counts how many characters it is asked to encode
+     */
+    private static class CountingEncoder implements Encoder {
+        private final Encoder inner;
+        private final boolean positionIndependent;
+        private int encodedChars;
+
+        CountingEncoder(Encoder inner, boolean positionIndependent) {
+            this.inner = inner;
+            this.positionIndependent = positionIndependent;
+        }
+
+        @Override
+        public String encode(String text) {
+            encodedChars += text.length();
+            return inner.encode(text);
+        }
+
+        @Override
+        public String decode(String text) {
+            return inner.decode(text);
+        }
+
+        @Override
+        public boolean isPositionIndependent() {
+            return positionIndependent;
+        }
+    }
+
+    @BeforeEach
+    void runBefore() {
+        counter = new CountingEncoder(new CaesarCipher(3), true);
+        incremental = new IncrementalEncoder(counter);
+    }
+
+    @Test
+    void typingTest() {
+        String text = "";
+        for (char c : "ATTACK AT DAWN".toCharArray()) {
+            text += c;
+            assertEquals(new CaesarCipher(3).encode(text), incremental.update(text));
+        }
+        assertEquals(14, counter.encodedChars);
+    }
+
+    @Test
+    void editTest() {
+        incremental.update("DEFEND THE EAST WALL");
+        counter.encodedChars = 0;
+        assertEquals(new CaesarCipher(3).encode("DEFEND THE WEST WALL"), incremental.update("DEFEND THE WEST WALL"));
+        assertEquals(2, counter.encodedChars);
+        assertEquals(new CaesarCipher(3).encode("DEFEND WALL"), incremental.update("DEFEND WALL"));
+        assertEquals(2, counter.encodedChars);
+        assertEquals("", incremental.update(""));
+    }
+
+    @Test
+    void unchangedTest() {
+        incremental.update("HELLO");
+        counter.encodedChars = 0;
+        incremental.update("HELLO");
+        assertEquals(0, counter.encodedChars);
+    }
+
+    @Test
+    void positionDependentTest() {
+        counter = new CountingEncoder(new AtbashCipher(), false);
+        incremental = new IncrementalEncoder(counter);
+        incremental.update("HELLO");
+        assertEquals("SVOOL DLIOW", incremental.update("HELLO WORLD"));
+        assertEquals(16, counter.encodedChars);
+    }
+
+    @Test
+    void sequenceTest() {
+        CipherSequence sequence = new CipherSequence("Test");
+        sequence.pushCipher(new AtbashCipher());
+        assertTrue(sequence.isPositionIndependent());
+        assertTrue(new AtbashCipher().isPositionIndependent());
+    }
+}
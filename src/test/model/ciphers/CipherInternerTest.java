@@ -0,0 +1,53 @@
+package model.ciphers;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link CipherInterner}
+ */
+public class CipherInternerTest {
+    private CipherInterner interner;
+
+    @BeforeEach
+    void runBefore() {
+        interner = CipherInterner.getInstance();
+    }
+
+    @Test
+    void singletonTest() {
+        assertSame(interner, CipherInterner.getInstance());
+    }
+
+    @Test
+    void internTest() {
+        CaesarCipher first = interner.intern(new CaesarCipher(21));
+        CaesarCipher second = interner.intern(new CaesarCipher(21));
+        assertSame(first, second);
+        assertNotSame(first, interner.intern(new CaesarCipher(22)));
+
+        AffineCipher affine = interner.intern(new AffineCipher(5, 8));
+        assertSame(affine, interner.intern(new AffineCipher(5, 8)));
+        assertNotSame(affine, interner.intern(new AffineCipher(5, 9)));
+    }
+
+    @Test
+    void typeKeyTest() {
+        Cipher rot13 = interner.intern(new Rot13Cipher());
+        Cipher caesar13 = interner.intern(new CaesarCipher(13));
+        assertNotSame(rot13, caesar13);
+        assertEquals("Rot13Cipher", rot13.toString());
+        assertEquals("CaesarCipher-13", caesar13.toString());
+        assertEquals(rot13.encode("Hello"), caesar13.encode("Hello"));
+    }
+
+    @Test
+    void keyParametersTest() {
+        assertArrayEquals(new int[] {7}, new CaesarCipher(7).keyParameters());
+        assertArrayEquals(new int[] {13}, new Rot13Cipher().keyParameters());
+        assertArrayEquals(new int[] {3, 4}, new AffineCipher(3, 4).keyParameters());
+        assertArrayEquals(new int[0], new AtbashCipher().keyParameters());
+    }
+}
@@ -37,6 +37,12 @@ public class CipherTest {
         assertEquals("D", Cipher.ALPHA_MAP.inverse().get(3));
     }
 
+    @Test
+    void passThroughTest() {
+        assertEquals("HELLO, WORLD!\n42", cipher.encode("Hello, World!\n42"));
+        assertEquals("ZYX-123 \t", new AtbashCipher().encode("abc-123 \t"));
+    }
+
     @Test
     void nameTest() {
         assertEquals("TestCipher", cipher.toString());
@@ -0,0 +1,136 @@
+package persistence;
+
+import model.CipherSequence;
+import model.ciphers.AtbashCipher;
+import model.ciphers.CaesarCipher;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link BatchRunner}
+ */
+public class BatchRunnerTest {
+    private Path root;
+    private Path source;
+    private Path target;
+    private CaesarCipher cipher;
+
+    @BeforeEach
+    void runBefore() throws IOException {
+        root = Files.createTempDirectory("xypher-batch");
+        source = root.resolve("in");
+        target = root.resolve("out");
+        Files.createDirectories(source.resolve("logs/old"));
+        for (int i = 0; i < 10; i++) {
+            write(source.resolve("file" + i + ".txt"), "Plain text number " + i);
+        }
+        write(source.resolve("logs/app.log"), "Started, listening on 8080");
+        write(source.resolve("logs/old/app.log"), "Stopped");
+        cipher = new CaesarCipher(3);
+    }
+
+    @AfterEach
+    void runAfter() throws IOException {
+        try (Stream<Path> paths = Files.walk(root)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test
+    void runTest() throws IOException {
+        BatchRunner.Report report = new BatchRunner(cipher, true, 4).run(source, target);
+        assertEquals(12, report.getConverted());
+        assertEquals(0, report.getSkipped());
+        assertTrue(report.getFailures().isEmpty());
+        assertEquals(19 * 10 + 26 + 7, report.getBytes());
+        assertTrue(report.filesPerSecond() > 0);
+        assertEquals(cipher.encode("Started, listening on 8080"), read(target.resolve("logs/app.log")));
+        assertTrue(Files.exists(target.resolve(BatchRunner.MANIFEST_FILE)));
+
+        Path plain = root.resolve("plain");
+        assertEquals(12, new BatchRunner(cipher, false, 2).run(target, plain).getConverted());
+        assertEquals("PLAIN TEXT NUMBER 7", read(plain.resolve("file7.txt")));
+    }
+
+    @Test
+    void resumeTest() throws IOException {
+        new BatchRunner(cipher, true, 4).run(source, target);
+        Files.write(target.resolve(BatchRunner.MANIFEST_FILE), "\n{\"path\":\"fil".getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.APPEND);
+        write(source.resolve("file3.txt"), "Changed since the last run");
+        Files.delete(target.resolve("file5.txt"));
+
+        BatchRunner.Report report = new BatchRunner(cipher, true, 4).run(source, target);
+        assertEquals(2, report.getConverted());
+        assertEquals(10, report.getSkipped());
+        assertEquals(cipher.encode("Changed since the last run"), read(target.resolve("file3.txt")));
+
+        report = new BatchRunner(cipher, true, 4).run(source, target);
+        assertEquals(0, report.getConverted());
+        assertEquals(12, report.getSkipped());
+    }
+
+    @Test
+    void otherJobTest() throws IOException {
+        new BatchRunner(cipher, true, 4).run(source, target);
+        BatchRunner.Report report = new BatchRunner(new AtbashCipher(), true, 4).run(source, target);
+        assertEquals(12, report.getConverted());
+        assertEquals(0, report.getSkipped());
+        report = new BatchRunner(new AtbashCipher(), false, 4).run(source, target);
+        assertEquals(12, report.getConverted());
+    }
+
+    @Test
+    void editedSequenceTest() throws IOException {
+        CipherSequence sequence = new CipherSequence("Nightly");
+        sequence.pushCipher(cipher);
+        new BatchRunner(sequence, true, 4).run(source, target);
+        sequence.pushCipher(new AtbashCipher());
+
+        BatchRunner.Report report = new BatchRunner(sequence, true, 4).run(source, target);
+        assertEquals(12, report.getConverted());
+        assertEquals(0, report.getSkipped());
+        assertEquals(sequence.encode("Plain text number 4"), read(target.resolve("file4.txt")));
+    }
+
+    @Test
+    void cacheTest() throws IOException {
+        ResultCache cache = new ResultCache(root.resolve("cache"), 1024 * 1024);
+        BatchRunner runner = new BatchRunner(cipher, true, 4);
+        runner.setCache(cache);
+        BatchRunner.Report report = runner.run(source, target);
+        assertEquals(12, report.getConverted());
+        assertEquals(0, report.getCacheHits());
+        assertEquals(12, cache.count());
+
+        report = runner.run(source, root.resolve("elsewhere"));
+        assertEquals(12, report.getConverted());
+        assertEquals(12, report.getCacheHits());
+        assertEquals(read(target.resolve("logs/app.log")), read(root.resolve("elsewhere/logs/app.log")));
+    }
+
+    @Test
+    void invalidTargetTest() {
+        BatchRunner runner = new BatchRunner(cipher, true, 1);
+        assertThrows(IllegalArgumentException.class, () -> runner.run(source, source.resolve("out")));
+    }
+
+    private static void write(Path path, String text) throws IOException {
+        Files.write(path, text.getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    private static String read(Path path) throws IOException {
+        return new String(Files.readAllBytes(path), StandardCharsets.ISO_8859_1);
+    }
+}
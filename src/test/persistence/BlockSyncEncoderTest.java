@@ -0,0 +1,102 @@
+package persistence;
+
+import model.ciphers.AtbashCipher;
+import model.ciphers.CaesarCipher;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link BlockSyncEncoder}
+ */
+public class BlockSyncEncoderTest {
+    private Path root;
+    private Path source;
+    private Path output;
+    private CaesarCipher cipher;
+    private BlockSyncEncoder encoder;
+    private StringBuilder text;
+
+    @BeforeEach
+    void runBefore() throws IOException {
+        root = Files.createTempDirectory("xypher-blocks");
+        source = root.resolve("app.log");
+        output = root.resolve("app.log.enc");
+        cipher = new CaesarCipher(9);
+        encoder = new BlockSyncEncoder(cipher, 64);
+        text = new StringBuilder();
+        for (int i = 0; i < 40; i++) {
+            text.append("event ").append(i % 10).append(" ok\n");
+        }
+        write(text.toString());
+    }
+
+    @AfterEach
+    void runAfter() throws IOException {
+        try (Stream<Path> paths = Files.walk(root)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test
+    void firstSyncTest() throws IOException {
+        BlockSyncEncoder.Result result = encoder.sync(source, output);
+        assertEquals(7, result.getBlocks());
+        assertEquals(7, result.getRewritten());
+        assertEquals(text.length(), result.getBytesWritten());
+        assertEquals(cipher.encode(text.toString()), read(output));
+        assertTrue(Files.exists(BlockSyncEncoder.manifestOf(output)));
+
+        result = encoder.sync(source, output);
+        assertEquals(0, result.getRewritten());
+        assertEquals(0, result.getBytesWritten());
+    }
+
+    @Test
+    void changedBlocksTest() throws IOException {
+        encoder.sync(source, output);
+        text.setCharAt(70, 'X');
+        text.append("appended line\n");
+        write(text.toString());
+
+        BlockSyncEncoder.Result result = encoder.sync(source, output);
+        assertEquals(8, result.getBlocks());
+        assertEquals(3, result.getRewritten());
+        assertEquals(64 + text.length() - 6 * 64, result.getBytesWritten());
+        assertEquals(cipher.encode(text.toString()), read(output));
+
+        text.setLength(100);
+        write(text.toString());
+        assertEquals(1, encoder.sync(source, output).getRewritten());
+        assertEquals(cipher.encode(text.toString()), read(output));
+    }
+
+    @Test
+    void invalidManifestTest() throws IOException {
+        encoder.sync(source, output);
+        assertEquals(7, new BlockSyncEncoder(new AtbashCipher(), 64).sync(source, output).getRewritten());
+        assertEquals(4, new BlockSyncEncoder(new AtbashCipher(), 128).sync(source, output).getRewritten());
+
+        Files.write(output, "tampered".getBytes(StandardCharsets.ISO_8859_1), StandardOpenOption.APPEND);
+        assertEquals(4, new BlockSyncEncoder(new AtbashCipher(), 128).sync(source, output).getRewritten());
+        assertEquals(new AtbashCipher().encode(text.toString()), read(output));
+    }
+
+    private void write(String content) throws IOException {
+        Files.write(source, content.getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    private static String read(Path path) throws IOException {
+        return new String(Files.readAllBytes(path), StandardCharsets.ISO_8859_1);
+    }
+}
@@ -0,0 +1,78 @@
+package persistence;
+
+import model.Encoder;
+import model.ciphers.CaesarCipher;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link DataFolderWatcher}
+ */
+public class DataFolderWatcherTest {
+    private static final CaesarCipher WATCH_TEST_CIPHER = new CaesarCipher(19);
+    private FileHandler fileHandler;
+    private DataFolderWatcher watcher;
+    private BlockingQueue<Map<String, Encoder>> batches;
+
+    @BeforeEach
+    void runBefore() throws IOException {
+        fileHandler = FileHandler.getInstance();
+        batches = new LinkedBlockingQueue<>();
+        watcher = new DataFolderWatcher(fileHandler, 50, Runnable::run, batches::add);
+    }
+
+    @AfterEach
+    void runAfter() throws IOException {
+        watcher.close();
+    }
+
+    @Test
+    void reloadTest() throws Exception {
+        new File("./data/" + WATCH_TEST_CIPHER.toString() + FileHandler.FILE_EXT).deleteOnExit();
+        fileHandler.saveEncoder(WATCH_TEST_CIPHER);
+
+        Map<String, Encoder> batch = batches.poll(10, TimeUnit.SECONDS);
+        assertNotNull(batch);
+        CaesarCipher reloaded = (CaesarCipher) batch.get(WATCH_TEST_CIPHER.toString());
+        assertEquals(WATCH_TEST_CIPHER.getShift(), reloaded.getShift());
+    }
+
+    @Test
+    void skipsInvalidFilesTest() throws Exception {
+        File invalid = new File("./data/WatchTestInvalid" + FileHandler.FILE_EXT);
+        invalid.deleteOnExit();
+        new File("./data/" + WATCH_TEST_CIPHER.toString() + FileHandler.FILE_EXT).deleteOnExit();
+        Files.write(invalid.toPath(), "{\"forkJoinThreshold\":1}".getBytes(StandardCharsets.UTF_8));
+        fileHandler.saveEncoder(WATCH_TEST_CIPHER);
+
+        Map<String, Encoder> batch;
+        do {
+            batch = batches.poll(10, TimeUnit.SECONDS);
+            assertNotNull(batch);
+            assertFalse(batch.containsKey("WatchTestInvalid"));
+        } while (!batch.containsKey(WATCH_TEST_CIPHER.toString()));
+        assertTrue(invalid.delete());
+    }
+
+    @Test
+    void ignoresOtherFilesTest() throws Exception {
+        File other = new File("./data/WatchTestNotes.txt");
+        other.deleteOnExit();
+        assertTrue(other.createNewFile() || other.setLastModified(System.currentTimeMillis()));
+
+        assertNull(batches.poll(500, TimeUnit.MILLISECONDS));
+        assertTrue(other.delete());
+    }
+}
@@ -0,0 +1,71 @@
+package persistence;
+
+import model.CipherSequence;
+import model.Encoder;
+import model.ciphers.AtbashCipher;
+import model.ciphers.CaesarCipher;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link EncodedFile}
+ */
+public class EncodedFileTest {
+    private static final String PLAIN = "THE QUICK BROWN FOX JUMPS OVER THE LAZY DOG";
+    private Path path;
+    private CipherSequence sequence;
+
+    @BeforeEach
+    void runBefore() throws IOException {
+        sequence = new CipherSequence("TestSliceSequence");
+        sequence.pushCipher(new CaesarCipher(9));
+        sequence.pushCipher(new AtbashCipher());
+        path = Files.createTempFile("xypher", ".enc");
+        Files.write(path, sequence.encode(PLAIN).getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    @AfterEach
+    void runAfter() throws IOException {
+        Files.delete(path);
+    }
+
+    @Test
+    void sliceTest() throws IOException {
+        try (EncodedFile file = new EncodedFile(path, sequence)) {
+            assertEquals(PLAIN.length(), file.size());
+            assertEquals("BROWN", file.decodeSlice(10, 5));
+            assertEquals("DOG", file.decodeSlice(PLAIN.length() - 3, 100));
+            assertEquals("", file.decodeSlice(PLAIN.length() + 5, 10));
+            assertEquals(PLAIN, file.decodeSlice(0, PLAIN.length()));
+        }
+    }
+
+    @Test
+    void positionDependentTest() throws IOException {
+        Encoder reversing = new Encoder() {
+            @Override
+            public String encode(String text) {
+                return new StringBuilder(text).reverse().toString();
+            }
+
+            @Override
+            public String decode(String text) {
+                return encode(text);
+            }
+        };
+        try (EncodedFile file = new EncodedFile(path, reversing)) {
+            file.decodeSlice(0, 5);
+            fail("Exception not thrown");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+    }
+}
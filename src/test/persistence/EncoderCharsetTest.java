@@ -0,0 +1,77 @@
+package persistence;
+
+import model.CipherSequence;
+import model.ciphers.AtbashCipher;
+import model.ciphers.CaesarCipher;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link EncoderCharset}
+ */
+public class EncoderCharsetTest {
+    private static final String PLAIN = "Meet me at the old mill, 9 pm.\nBring the map!";
+    private CipherSequence sequence;
+    private Charset charset;
+
+    @BeforeEach
+    void runBefore() {
+        sequence = new CipherSequence("TestCharsetSequence");
+        sequence.pushCipher(new CaesarCipher(11));
+        sequence.pushCipher(new AtbashCipher());
+        charset = new EncoderCharset(sequence);
+    }
+
+    @Test
+    void nameTest() {
+        assertEquals("x-xypher-TestCharsetSequence", charset.name());
+        assertEquals("x-xypher-CaesarCipher-3", new EncoderCharset(new CaesarCipher(3)).name());
+        assertTrue(charset.contains(charset));
+        assertFalse(charset.contains(StandardCharsets.ISO_8859_1));
+    }
+
+    @Test
+    void writerReaderTest() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (Writer writer = new OutputStreamWriter(bytes, charset)) {
+            writer.write(PLAIN);
+        }
+        assertEquals(sequence.encode(PLAIN), new String(bytes.toByteArray(), StandardCharsets.ISO_8859_1));
+
+        StringBuilder decoded = new StringBuilder();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new ByteArrayInputStream(bytes.toByteArray()), charset))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                decoded.append(line).append('\n');
+            }
+        }
+        assertEquals(PLAIN.toUpperCase() + "\n", decoded.toString());
+    }
+
+    @Test
+    void unmappableTest() {
+        try {
+            charset.newEncoder().encode(CharBuffer.wrap("café ☃"));
+            fail("Exception not thrown");
+        } catch (CharacterCodingException e) {
+            // expected
+        }
+        assertTrue(charset.newEncoder().canEncode('é'));
+        assertFalse(charset.newEncoder().canEncode('☃'));
+    }
+}
@@ -0,0 +1,64 @@
+package persistence;
+
+import model.CipherSequence;
+import model.ciphers.AffineCipher;
+import model.ciphers.CaesarCipher;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link EncoderInputStream} and {@link EncoderOutputStream}
+ */
+public class EncoderInputStreamTest {
+    private CipherSequence sequence;
+    private String plain;
+
+    @BeforeEach
+    void runBefore() {
+        sequence = new CipherSequence("TestStreamSequence");
+        sequence.pushCipher(new AffineCipher(7, 3));
+        sequence.pushCipher(new CaesarCipher(4));
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            sb.append("RECORD ").append(i).append(": ALL QUIET ON THE WESTERN FRONT\n");
+        }
+        plain = sb.toString();
+    }
+
+    @Test
+    void inputStreamTest() throws IOException {
+        byte[] plainBytes = plain.getBytes(StandardCharsets.ISO_8859_1);
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        try (InputStream in = new EncoderInputStream(new ByteArrayInputStream(plainBytes), sequence, true)) {
+            encoded.write(in.read());
+            byte[] buffer = new byte[777];
+            int read;
+            while ((read = in.read(buffer, 0, buffer.length)) != -1) {
+                encoded.write(buffer, 0, read);
+            }
+        }
+        assertEquals(sequence.encode(plain), new String(encoded.toByteArray(), StandardCharsets.ISO_8859_1));
+    }
+
+    @Test
+    void outputStreamTest() throws IOException {
+        byte[] encodedBytes = sequence.encode(plain).getBytes(StandardCharsets.ISO_8859_1);
+        byte[] original = encodedBytes.clone();
+        ByteArrayOutputStream decoded = new ByteArrayOutputStream();
+        try (OutputStream out = new EncoderOutputStream(decoded, sequence, false)) {
+            out.write(encodedBytes[0]);
+            out.write(encodedBytes, 1, encodedBytes.length - 1);
+        }
+        assertArrayEquals(original, encodedBytes);
+        assertEquals(plain, new String(decoded.toByteArray(), StandardCharsets.ISO_8859_1));
+    }
+}
@@ -0,0 +1,58 @@
+package persistence;
+
+import model.ciphers.AtbashCipher;
+import model.ciphers.Cipher;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link EncoderReadableChannel} and {@link EncoderWritableChannel}
+ */
+public class EncoderReadableChannelTest {
+    private static final String PLAIN = "Wizard of Oz, 1939. Follow the yellow brick road!";
+    private final Cipher cipher = new AtbashCipher();
+
+    @Test
+    void readableTest() throws IOException {
+        ReadableByteChannel source = Channels.newChannel(
+                new ByteArrayInputStream(PLAIN.getBytes(StandardCharsets.ISO_8859_1)));
+        ByteBuffer heap = ByteBuffer.allocate(10);
+        ByteBuffer direct = ByteBuffer.allocateDirect(PLAIN.length());
+        try (ReadableByteChannel channel = new EncoderReadableChannel(source, cipher, true)) {
+            assertTrue(channel.isOpen());
+            heap.put((byte) '>');
+            assertEquals(9, channel.read(heap));
+            assertEquals(PLAIN.length() - 9, channel.read(direct));
+            assertEquals(-1, channel.read(direct));
+        }
+        byte[] encoded = new byte[PLAIN.length() + 1];
+        heap.flip();
+        heap.get(encoded, 0, 10);
+        direct.flip();
+        direct.get(encoded, 10, PLAIN.length() - 9);
+        assertEquals(">" + cipher.encode(PLAIN), new String(encoded, StandardCharsets.ISO_8859_1));
+        assertFalse(source.isOpen());
+    }
+
+    @Test
+    void writableTest() throws IOException {
+        ByteArrayOutputStream sink = new ByteArrayOutputStream();
+        ByteBuffer src = ByteBuffer.wrap(cipher.encode(PLAIN).getBytes(StandardCharsets.ISO_8859_1));
+        try (WritableByteChannel channel = new EncoderWritableChannel(Channels.newChannel(sink), cipher, false)) {
+            assertEquals(PLAIN.length(), channel.write(src));
+        }
+        assertFalse(src.hasRemaining());
+        assertEquals(cipher.encode(PLAIN), new String(src.array(), StandardCharsets.ISO_8859_1));
+        assertEquals(PLAIN.toUpperCase(), new String(sink.toByteArray(), StandardCharsets.ISO_8859_1));
+    }
+}
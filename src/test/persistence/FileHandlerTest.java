@@ -10,8 +10,12 @@ import org.junit.jupiter.api.Test;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.fail;
 
 public class FileHandlerTest {
@@ -108,4 +112,53 @@ public class FileHandlerTest {
             fail("Exception thrown");
         }
     }
+
+    @Test
+    void sharedCipherTest() {
+        CipherSequence sequence = new CipherSequence("TestSharedSequence");
+        sequence.pushCipher(new AtbashCipher());
+        sequence.pushCipher(new AtbashCipher());
+        CipherSequence other = new CipherSequence("TestOtherSharedSequence");
+        other.pushCipher(new AtbashCipher());
+        try {
+            CipherSequence readSeq = (CipherSequence) fileHandler.fromJson(fileHandler.toJson(sequence),
+                    CipherSequence.class.getName());
+            CipherSequence readOther = (CipherSequence) fileHandler.fromJson(fileHandler.toJson(other),
+                    CipherSequence.class.getName());
+            assertSame(readSeq.getCipherList().get(0), readSeq.getCipherList().get(1));
+            assertSame(readSeq.getCipherList().get(0), readOther.getCipherList().get(0));
+            assertSame(readSeq.getCipherList().get(0), fileHandler.loadEncoder("AtbashCipher"));
+        } catch (IOException | ClassNotFoundException e) {
+            e.printStackTrace();
+            fail("Exception thrown");
+        }
+    }
+
+    @Test
+    void referenceStorageTest() {
+        new File("./data/TestReferenceSequence.json").deleteOnExit();
+        new File("./data/CaesarCipher-23.json").deleteOnExit();
+        CipherSequence sequence = new CipherSequence("TestReferenceSequence");
+        sequence.pushCipher(new CaesarCipher(23));
+        sequence.pushCipher(new AtbashCipher());
+        sequence.pushCipher(new CaesarCipher(23));
+        fileHandler.setSequenceStorage(FileHandler.SequenceStorage.REFERENCE);
+        try {
+            fileHandler.saveEncoder(sequence);
+            String json = new String(Files.readAllBytes(new File("./data/TestReferenceSequence.json").toPath()));
+            assertTrue(json.contains(FileHandler.CIPHER_REFS_KEY));
+            assertFalse(json.contains("letterShift"));
+            assertTrue(new File("./data/CaesarCipher-23.json").exists());
+
+            CipherSequence readSeq = (CipherSequence) fileHandler.loadEncoder("TestReferenceSequence");
+            assertEquals(3, readSeq.getSize());
+            assertEquals(sequence.encode("hello"), readSeq.encode("hello"));
+            assertSame(readSeq.getCipherList().get(0), readSeq.getCipherList().get(2));
+        } catch (IOException | ClassNotFoundException e) {
+            e.printStackTrace();
+            fail("Exception thrown");
+        } finally {
+            fileHandler.setSequenceStorage(FileHandler.SequenceStorage.INLINE);
+        }
+    }
 }
@@ -0,0 +1,80 @@
+package persistence;
+
+import model.Encoder;
+import model.ciphers.CaesarCipher;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link FileTranscoder}
+ */
+public class FileTranscoderTest {
+    private Path source;
+    private Path target;
+    private Path roundTrip;
+    private String text;
+
+    @BeforeEach
+    void runBefore() throws IOException {
+        source = Files.createTempFile("xypher", ".txt");
+        target = Files.createTempFile("xypher", ".enc");
+        roundTrip = Files.createTempFile("xypher", ".txt");
+        StringBuilder sb = new StringBuilder();
+        while (sb.length() < FileTranscoder.CHUNK_SIZE * 2 + 100) {
+            sb.append("Attack at dawn, hold the east wall!\n");
+        }
+        text = sb.toString();
+        Files.write(source, text.getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    @AfterEach
+    void runAfter() throws IOException {
+        Files.delete(source);
+        Files.delete(target);
+        Files.delete(roundTrip);
+    }
+
+    @Test
+    void transcodeTest() throws IOException {
+        CaesarCipher cipher = new CaesarCipher(7);
+        List<Long> progress = new ArrayList<>();
+        new FileTranscoder(cipher, true).transcode(source, target, progress::add);
+        assertEquals(cipher.encode(text), new String(Files.readAllBytes(target), StandardCharsets.ISO_8859_1));
+        assertEquals(3, progress.size());
+        assertEquals(text.length(), (long) progress.get(2));
+
+        new FileTranscoder(cipher, false).transcode(target, roundTrip, done -> { });
+        assertEquals(text.toUpperCase(), new String(Files.readAllBytes(roundTrip), StandardCharsets.ISO_8859_1));
+    }
+
+    @Test
+    void positionDependentTest() {
+        Encoder encoder = new Encoder() {
+            @Override
+            public String encode(String text) {
+                return text;
+            }
+
+            @Override
+            public String decode(String text) {
+                return text;
+            }
+        };
+        try {
+            new FileTranscoder(encoder, true);
+            fail("Exception not thrown");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package persistence;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link MappedTextFile}
+ */
+public class MappedTextFileTest {
+    private static final String TEXT = "DEFEND THE EAST WALL\nOF THE CASTLE";
+    private Path path;
+    private MappedTextFile file;
+
+    @BeforeEach
+    void runBefore() throws IOException {
+        path = Files.createTempFile("xypher", ".txt");
+        Files.write(path, TEXT.getBytes(StandardCharsets.ISO_8859_1));
+        file = new MappedTextFile(path);
+    }
+
+    @AfterEach
+    void runAfter() throws IOException {
+        Files.delete(path);
+    }
+
+    @Test
+    void charSequenceTest() {
+        assertEquals(TEXT.length(), file.length());
+        assertEquals('D', file.charAt(0));
+        assertEquals('\n', file.charAt(20));
+        assertEquals("EAST", file.subSequence(11, 15));
+        assertEquals(TEXT, file.toString());
+        assertEquals(path, file.getPath());
+    }
+
+    @Test
+    void rangeTest() {
+        try {
+            file.subSequence(30, TEXT.length() + 1);
+            fail("Exception not thrown");
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+    }
+}
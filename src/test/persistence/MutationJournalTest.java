@@ -0,0 +1,117 @@
+package persistence;
+
+import model.CipherSequence;
+import model.Encoder;
+import model.ciphers.AtbashCipher;
+import model.ciphers.CaesarCipher;
+import model.ciphers.Rot13Cipher;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link MutationJournal}
+ */
+public class MutationJournalTest {
+    private Path folder;
+    private MutationJournal journal;
+
+    @BeforeEach
+    void runBefore() throws IOException {
+        folder = Files.createTempDirectory("xypher-journal");
+        journal = open(100);
+        assertTrue(journal.recover().isEmpty());
+    }
+
+    @AfterEach
+    void runAfter() throws IOException {
+        journal.close();
+        Files.deleteIfExists(folder.resolve(MutationJournal.JOURNAL_FILE));
+        Files.deleteIfExists(folder.resolve(MutationJournal.SNAPSHOT_FILE));
+        Files.delete(folder);
+    }
+
+    @Test
+    void replayTest() throws Exception {
+        journal.recordPut("TestSequence", new CipherSequence("TestSequence"));
+        journal.recordPut("AtbashCipher", new AtbashCipher());
+        journal.recordPush("TestSequence", new AtbashCipher());
+        journal.recordPush("TestSequence", new CaesarCipher(5));
+        journal.recordInsert("TestSequence", new Rot13Cipher(), 1);
+        journal.recordRemove("TestSequence", 0);
+        journal.recordDelete("AtbashCipher").get();
+        journal.close();
+
+        journal = open(100);
+        Map<String, Encoder> state = journal.recover();
+        assertEquals(1, state.size());
+        CipherSequence sequence = (CipherSequence) state.get("TestSequence");
+        assertEquals(2, sequence.getSize());
+        assertEquals("Rot13Cipher", sequence.getCipherList().get(0).toString());
+        assertEquals("CaesarCipher-5", sequence.getCipherList().get(1).toString());
+    }
+
+    @Test
+    void snapshotTest() throws Exception {
+        CipherSequence sequence = new CipherSequence("TestSequence");
+        journal.recordPut("TestSequence", sequence);
+        for (int i = 0; i < 3; i++) {
+            sequence.pushCipher(new CaesarCipher(i));
+            journal.recordPush("TestSequence", new CaesarCipher(i));
+        }
+        journal.snapshot(Collections.singletonMap("TestSequence", sequence)).get();
+        assertEquals(0, Files.size(folder.resolve(MutationJournal.JOURNAL_FILE)));
+        journal.recordPush("TestSequence", new AtbashCipher()).get();
+        journal.close();
+
+        journal = open(100);
+        CipherSequence recovered = (CipherSequence) journal.recover().get("TestSequence");
+        assertEquals(4, recovered.getSize());
+        assertEquals("AtbashCipher", recovered.getCipherList().getLast().toString());
+    }
+
+    @Test
+    void needsSnapshotTest() throws Exception {
+        journal.close();
+        journal = open(2);
+        journal.recover();
+        journal.recordPut("AtbashCipher", new AtbashCipher());
+        assertFalse(journal.needsSnapshot());
+        journal.recordPut("Rot13Cipher", new Rot13Cipher());
+        assertTrue(journal.needsSnapshot());
+    }
+
+    @Test
+    void tornRecordTest() throws Exception {
+        journal.recordPut("AtbashCipher", new AtbashCipher());
+        journal.recordPut("Rot13Cipher", new Rot13Cipher()).get();
+        journal.close();
+        try (RandomAccessFile file = new RandomAccessFile(folder.resolve(MutationJournal.JOURNAL_FILE).toFile(),
+                "rw")) {
+            file.setLength(file.length() - 3);
+        }
+
+        journal = open(100);
+        Map<String, Encoder> state = journal.recover();
+        assertEquals(1, state.size());
+        assertTrue(state.containsKey("AtbashCipher"));
+        journal.recordPut("CaesarCipher-3", new CaesarCipher(3)).get();
+        journal.close();
+
+        journal = open(100);
+        assertEquals(2, journal.recover().size());
+    }
+
+    private MutationJournal open(int snapshotInterval) {
+        return new MutationJournal(folder.toString(), FileHandler.getInstance(), snapshotInterval);
+    }
+}
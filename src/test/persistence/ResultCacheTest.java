@@ -0,0 +1,98 @@
+package persistence;
+
+import model.CipherSequence;
+import model.ciphers.AtbashCipher;
+import model.ciphers.CaesarCipher;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link ResultCache}
+ */
+public class ResultCacheTest {
+    private Path root;
+    private Path folder;
+    private Path input;
+
+    @BeforeEach
+    void runBefore() throws IOException {
+        root = Files.createTempDirectory("xypher-cache");
+        folder = root.resolve("cache");
+        input = write("input.txt", "Same content every night");
+    }
+
+    @AfterEach
+    void runAfter() throws IOException {
+        try (Stream<Path> paths = Files.walk(root)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test
+    void keyTest() throws IOException {
+        CaesarCipher cipher = new CaesarCipher(4);
+        String key = ResultCache.keyOf(cipher, true, input);
+        assertEquals(64, key.length());
+        assertEquals(key, ResultCache.keyOf(new CaesarCipher(4), true, write("copy.txt", "Same content every night")));
+        assertNotEquals(key, ResultCache.keyOf(cipher, false, input));
+        assertNotEquals(key, ResultCache.keyOf(new CaesarCipher(5), true, input));
+        assertNotEquals(key, ResultCache.keyOf(cipher, true, write("other.txt", "Different content")));
+
+        CipherSequence sequence = new CipherSequence("NightlySequence");
+        sequence.pushCipher(cipher);
+        String sequenceKey = ResultCache.keyOf(sequence, true, input);
+        sequence.pushCipher(new AtbashCipher());
+        assertNotEquals(sequenceKey, ResultCache.keyOf(sequence, true, input));
+    }
+
+    @Test
+    void putCopyTest() throws IOException {
+        ResultCache cache = new ResultCache(folder, 1024);
+        Path target = root.resolve("target.txt");
+        assertFalse(cache.copyTo("missing", target));
+        assertFalse(Files.exists(target));
+
+        cache.put("abc", write("output.txt", "HELLO"));
+        assertEquals(1, cache.count());
+        assertEquals(5, cache.size());
+        assertTrue(cache.copyTo("abc", target));
+        assertEquals("HELLO", new String(Files.readAllBytes(target), StandardCharsets.ISO_8859_1));
+
+        cache.put("abc", write("output.txt", "HI"));
+        assertEquals(1, cache.count());
+        assertEquals(2, cache.size());
+        assertEquals(1, new ResultCache(folder, 1024).count());
+    }
+
+    @Test
+    void evictionTest() throws IOException {
+        ResultCache cache = new ResultCache(folder, 25);
+        Path blob = write("blob.txt", "0123456789");
+        cache.put("first", blob);
+        cache.put("second", blob);
+        assertTrue(cache.copyTo("first", root.resolve("target.txt")));
+        cache.put("third", blob);
+
+        assertEquals(2, cache.count());
+        assertEquals(20, cache.size());
+        assertFalse(cache.copyTo("second", root.resolve("target.txt")));
+        assertFalse(Files.exists(folder.resolve("second")));
+        assertTrue(cache.copyTo("first", root.resolve("target.txt")));
+
+        assertEquals(1, new ResultCache(folder, 10).count());
+    }
+
+    private Path write(String name, String text) throws IOException {
+        return Files.write(root.resolve(name), text.getBytes(StandardCharsets.ISO_8859_1));
+    }
+}
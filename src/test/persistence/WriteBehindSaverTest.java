@@ -0,0 +1,104 @@
+package persistence;
+
+import model.CipherSequence;
+import model.ciphers.AtbashCipher;
+import model.ciphers.CaesarCipher;
+import model.ciphers.Rot13Cipher;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link WriteBehindSaver}
+ */
+public class WriteBehindSaverTest {
+    private static final CaesarCipher SAVE_TEST_CIPHER = new CaesarCipher(17);
+    private FileHandler fileHandler;
+    private WriteBehindSaver saver;
+
+    @BeforeEach
+    void runBefore() {
+        fileHandler = FileHandler.getInstance();
+        saver = new WriteBehindSaver(fileHandler, 10, WriteBehindSaver.Durability.FORCE);
+    }
+
+    @AfterEach
+    void runAfter() {
+        saver.close();
+    }
+
+    @Test
+    void saveTest() throws Exception {
+        new File("./data/" + SAVE_TEST_CIPHER.toString() + FileHandler.FILE_EXT).deleteOnExit();
+        saver.save(SAVE_TEST_CIPHER).get();
+        CaesarCipher readCipher = (CaesarCipher) fileHandler.loadEncoder(SAVE_TEST_CIPHER.toString());
+        assertEquals(SAVE_TEST_CIPHER.getShift(), readCipher.getShift());
+    }
+
+    @Test
+    void coalesceTest() throws Exception {
+        new File("./data/TestWriteBehindSequence.json").deleteOnExit();
+        WriteBehindSaver slowSaver = new WriteBehindSaver(fileHandler, 60000, WriteBehindSaver.Durability.NO_FORCE);
+        CipherSequence sequence = new CipherSequence("TestWriteBehindSequence");
+        sequence.pushCipher(new AtbashCipher());
+        CompletableFuture<Void> first = slowSaver.save(sequence);
+        sequence.pushCipher(new Rot13Cipher());
+        CompletableFuture<Void> second = slowSaver.save(sequence);
+
+        assertSame(first, second);
+        assertEquals(1, slowSaver.getPendingCount());
+        slowSaver.flushNow().get();
+        assertTrue(first.isDone());
+        assertEquals(0, slowSaver.getPendingCount());
+
+        CipherSequence readSeq = (CipherSequence) fileHandler.loadEncoder("TestWriteBehindSequence");
+        assertEquals(2, readSeq.getSize());
+        slowSaver.close();
+    }
+
+    @Test
+    void existingCipherFileTest() throws Exception {
+        File saved = new File("./data/CaesarCipher-19" + FileHandler.FILE_EXT);
+        File unsaved = new File("./data/CaesarCipher-21" + FileHandler.FILE_EXT);
+        File sequenceFile = new File("./data/TestWriteBehindReference.json");
+        fileHandler.setSequenceStorage(FileHandler.SequenceStorage.REFERENCE);
+        try {
+            fileHandler.saveEncoder(new CaesarCipher(19));
+            assertTrue(saved.setLastModified(1000));
+            CipherSequence sequence = new CipherSequence("TestWriteBehindReference");
+            sequence.pushCipher(new CaesarCipher(19));
+            sequence.pushCipher(new CaesarCipher(21));
+            saver.save(sequence).get();
+
+            assertEquals(1000, saved.lastModified());
+            assertTrue(unsaved.exists());
+            assertEquals(2, ((CipherSequence) fileHandler.loadEncoder("TestWriteBehindReference")).getSize());
+        } finally {
+            fileHandler.setSequenceStorage(FileHandler.SequenceStorage.INLINE);
+            saved.delete();
+            unsaved.delete();
+            sequenceFile.delete();
+        }
+    }
+
+    @Test
+    void closeFlushesTest() throws Exception {
+        new File("./data/TestWriteBehindClose.json").deleteOnExit();
+        WriteBehindSaver slowSaver = new WriteBehindSaver(fileHandler, 60000, WriteBehindSaver.Durability.NO_FORCE);
+        CompletableFuture<Void> future = slowSaver.save(new CipherSequence("TestWriteBehindClose"));
+        slowSaver.close();
+        assertTrue(future.isDone());
+        assertFalse(future.isCompletedExceptionally());
+        try {
+            slowSaver.save(SAVE_TEST_CIPHER);
+            fail("Exception not thrown");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package pipeline;
+
+import model.CipherSequence;
+import model.ciphers.AffineCipher;
+import model.ciphers.AtbashCipher;
+import model.ciphers.CaesarCipher;
+import model.ciphers.Cipher;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link PipelinedExecutor}
+ */
+public class PipelinedExecutorTest {
+    private CipherSequence sequence;
+    private String plain;
+
+    /**
+     * A position dependent cipher that shifts each letter by its offset in the text
+     */
+    private static class ProgressiveCipher extends Cipher {
+        ProgressiveCipher() {
+            super("ProgressiveCipher");
+        }
+
+        @Override
+        protected String encodeLetter(String letter) {
+            return letter;
+        }
+
+        @Override
+        protected String decodeLetter(String letter) {
+            return letter;
+        }
+
+        @Override
+        public String encode(String text) {
+            return encodeAt(text, 0);
+        }
+
+        @Override
+        public String decode(String text) {
+            return decodeAt(text, 0);
+        }
+
+        @Override
+        public String encodeAt(String text, long offset) {
+            return shift(text, offset, 1);
+        }
+
+        @Override
+        public String decodeAt(String text, long offset) {
+            return shift(text, offset, -1);
+        }
+
+        @Override
+        public boolean isPositionIndependent() {
+            return false;
+        }
+
+        private static String shift(String text, long offset, int direction) {
+            char[] chars = text.toUpperCase().toCharArray();
+            for (int i = 0; i < chars.length; i++) {
+                if (chars[i] >= 'A' && chars[i] <= 'Z') {
+                    int shift = (int) ((offset + i) % 26) * direction;
+                    chars[i] = (char) ('A' + Math.floorMod(chars[i] - 'A' + shift, 26));
+                }
+            }
+            return new String(chars);
+        }
+    }
+
+    @BeforeEach
+    void runBefore() {
+        sequence = new CipherSequence("TestPipelineSequence");
+        sequence.pushCipher(new CaesarCipher(5));
+        sequence.pushCipher(new AffineCipher(5, 8));
+        sequence.pushCipher(new AtbashCipher());
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            sb.append("Chunk boundaries fall anywhere, line ").append(i).append('\n');
+        }
+        plain = sb.toString();
+    }
+
+    @Test
+    void encodeDecodeTest() throws IOException {
+        PipelinedExecutor encoder = new PipelinedExecutor(sequence, true, 100, 4);
+        assertEquals(3, encoder.getStageCount());
+        StringWriter encoded = new StringWriter();
+        assertEquals(plain.length(), encoder.run(new StringReader(plain), encoded));
+        assertEquals(sequence.encode(plain), encoded.toString());
+
+        StringWriter decoded = new StringWriter();
+        new PipelinedExecutor(sequence, false).run(new StringReader(encoded.toString()), decoded);
+        assertEquals(plain.toUpperCase(), decoded.toString());
+    }
+
+    @Test
+    void positionDependentTest() throws IOException {
+        sequence.addCipher(new ProgressiveCipher(), 1);
+        assertFalse(sequence.isPositionIndependent());
+        StringWriter encoded = new StringWriter();
+        new PipelinedExecutor(sequence, true, 100, 4).run(new StringReader(plain), encoded);
+        assertEquals(sequence.encode(plain), encoded.toString());
+
+        StringWriter decoded = new StringWriter();
+        new PipelinedExecutor(sequence, false, 64, 3).run(new StringReader(encoded.toString()), decoded);
+        assertEquals(plain.toUpperCase(), decoded.toString());
+    }
+
+    @Test
+    void emptyTest() throws IOException {
+        PipelinedExecutor executor = new PipelinedExecutor(new CipherSequence("EmptySequence"), true, 16, 2);
+        assertEquals(0, executor.getStageCount());
+        StringWriter out = new StringWriter();
+        assertEquals(plain.length(), executor.run(new StringReader(plain), out));
+        assertEquals(plain, out.toString());
+        assertEquals(0, executor.run(new StringReader(""), new StringWriter()));
+    }
+
+    @Test
+    void writeFailureTest() {
+        Writer failing = new StringWriter() {
+            @Override
+            public void write(char[] cbuf, int off, int len) {
+                throw new IllegalStateException("Disk full");
+            }
+        };
+        PipelinedExecutor executor = new PipelinedExecutor(sequence, true, 64, 2);
+        IOException e = assertThrows(IOException.class, () -> executor.run(new StringReader(plain), failing));
+        assertEquals("Disk full", e.getCause().getMessage());
+    }
+}
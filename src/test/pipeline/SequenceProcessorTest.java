@@ -0,0 +1,182 @@
+package pipeline;
+
+import model.CipherSequence;
+import model.ciphers.AffineCipher;
+import model.ciphers.AtbashCipher;
+import model.ciphers.CaesarCipher;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link SequenceProcessor}, {@link StageProcessor}, {@link ReaderPublisher} and {@link WriterSubscriber}
+ */
+public class SequenceProcessorTest {
+    private CipherSequence sequence;
+    private String plain;
+    private ExecutorService executor;
+
+    /**
+     * A subscriber that records what it receives and requests only when told to
+     */
+    private static class RecordingSubscriber implements Flow.Subscriber<CharBuffer> {
+        private Flow.Subscription subscription;
+        private final List<String> items = new ArrayList<>();
+        private boolean completed;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(CharBuffer item) {
+            items.add(item.toString());
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            fail(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+        }
+    }
+
+    /**
+     * A subscriber that expects to be refused, recording its subscriptions and errors
+     */
+    private static class RefusedSubscriber implements Flow.Subscriber<CharBuffer> {
+        private final List<Flow.Subscription> subscriptions = new ArrayList<>();
+        private final List<Throwable> errors = new ArrayList<>();
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            subscriptions.add(subscription);
+        }
+
+        @Override
+        public void onNext(CharBuffer item) {
+            fail("refused subscriber received " + item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            errors.add(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            fail("refused subscriber completed");
+        }
+    }
+
+    @BeforeEach
+    void runBefore() {
+        sequence = new CipherSequence("TestFlowSequence");
+        sequence.pushCipher(new CaesarCipher(2));
+        sequence.pushCipher(new AffineCipher(3, 1));
+        sequence.pushCipher(new AtbashCipher());
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            sb.append("Line ").append(i).append(" of the unbounded stream.\n");
+        }
+        plain = sb.toString();
+        executor = Executors.newFixedThreadPool(2);
+    }
+
+    @AfterEach
+    void runAfter() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void pipelineTest() throws Exception {
+        SequenceProcessor encoder = new SequenceProcessor(sequence, true);
+        SequenceProcessor decoder = new SequenceProcessor(sequence, false);
+        assertEquals(3, encoder.getStageCount());
+        StringWriter out = new StringWriter();
+        WriterSubscriber sink = new WriterSubscriber(out);
+        new ReaderPublisher(new StringReader(plain), executor, 100).subscribe(encoder);
+        encoder.subscribe(decoder);
+        decoder.subscribe(sink);
+
+        assertEquals(plain.length(), (long) sink.getCompletion().get(10, TimeUnit.SECONDS));
+        assertEquals(plain.toUpperCase(), out.toString());
+    }
+
+    @Test
+    void demandTest() {
+        SequenceProcessor processor = new SequenceProcessor(sequence, true);
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        processor.subscribe(subscriber);
+        new ReaderPublisher(new StringReader("abcdefghij"), Runnable::run, 4).subscribe(processor);
+        assertTrue(subscriber.items.isEmpty());
+
+        subscriber.subscription.request(2);
+        assertEquals(2, subscriber.items.size());
+        assertEquals(sequence.encode("abcdefgh"), subscriber.items.get(0) + subscriber.items.get(1));
+        assertFalse(subscriber.completed);
+
+        subscriber.subscription.request(5);
+        assertEquals(3, subscriber.items.size());
+        assertEquals(sequence.encode("ij"), subscriber.items.get(2));
+        assertTrue(subscriber.completed);
+    }
+
+    @Test
+    void readOnlyChunkTest() {
+        StageProcessor stage = new StageProcessor(new AtbashCipher(), true);
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        stage.subscribe(subscriber);
+        CharBuffer chunk = CharBuffer.wrap("abc");
+        stage.onNext(chunk);
+        stage.onComplete();
+        assertEquals("ZYX", subscriber.items.get(0));
+        assertEquals("abc", chunk.toString());
+        assertTrue(subscriber.completed);
+    }
+
+    @Test
+    void refusedSubscriberTest() {
+        StageProcessor stage = new StageProcessor(new AtbashCipher(), true);
+        RecordingSubscriber first = new RecordingSubscriber();
+        stage.subscribe(first);
+        ReaderPublisher publisher = new ReaderPublisher(new StringReader("abcdefghij"), Runnable::run, 4);
+        publisher.subscribe(stage);
+        RefusedSubscriber second = new RefusedSubscriber();
+        stage.subscribe(second);
+        publisher.subscribe(second);
+        assertEquals(2, second.errors.size());
+        assertTrue(second.errors.get(0) instanceof IllegalStateException);
+        assertTrue(second.errors.get(1) instanceof IllegalStateException);
+
+        for (Flow.Subscription subscription : second.subscriptions) {
+            subscription.request(5);
+            subscription.cancel();
+        }
+        assertTrue(first.items.isEmpty());
+        first.subscription.request(4);
+        assertEquals("ZYXWVUTSRQ", String.join("", first.items));
+        assertTrue(first.completed);
+    }
+
+    @Test
+    void emptySequenceTest() {
+        SequenceProcessor processor = new SequenceProcessor(new CipherSequence("EmptySequence"), true);
+        assertEquals(1, processor.getStageCount());
+    }
+}
@@ -0,0 +1,56 @@
+package pipeline;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link SpscRing}
+ */
+public class SpscRingTest {
+    @Test
+    void capacityTest() {
+        assertEquals(1, new SpscRing<String>(1).capacity());
+        assertEquals(4, new SpscRing<String>(3).capacity());
+        assertEquals(16, new SpscRing<String>(16).capacity());
+    }
+
+    @Test
+    void offerPollTest() {
+        SpscRing<Integer> ring = new SpscRing<>(4);
+        assertNull(ring.poll());
+        for (int i = 0; i < 4; i++) {
+            assertTrue(ring.offer(i));
+        }
+        assertFalse(ring.offer(4));
+        assertEquals(4, ring.size());
+        assertEquals(0, ring.poll());
+        assertTrue(ring.offer(4));
+        for (int i = 1; i <= 4; i++) {
+            assertEquals(i, ring.poll());
+        }
+        assertEquals(0, ring.size());
+    }
+
+    @Test
+    void crossThreadTest() throws InterruptedException {
+        SpscRing<Integer> ring = new SpscRing<>(8);
+        int total = 100000;
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < total; i++) {
+                while (!ring.offer(i)) {
+                    Thread.yield();
+                }
+            }
+        });
+        producer.start();
+        for (int expected = 0; expected < total; ) {
+            Integer item = ring.poll();
+            if (item != null) {
+                assertEquals(expected++, item);
+            }
+        }
+        producer.join();
+        assertNull(ring.poll());
+    }
+}
@@ -0,0 +1,136 @@
+package ui;
+
+import javafx.collections.MapChangeListener;
+import metrics.EncoderMetrics;
+import metrics.MetricsRegistry;
+import model.CipherSequence;
+import model.Encoder;
+import model.ciphers.AtbashCipher;
+import model.ciphers.CaesarCipher;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import persistence.FileHandler;
+import persistence.MutationJournal;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link XypherApp}
+ */
+public class XypherAppTest {
+    private XypherApp app;
+
+    @BeforeEach
+    void runBefore() {
+        app = new XypherApp();
+    }
+
+    @AfterEach
+    void runAfter() {
+        app.close();
+    }
+
+    @Test
+    void saveSequenceTest() throws Exception {
+        File syncFile = new File("./data/TestAppSyncSequence" + FileHandler.FILE_EXT);
+        File asyncFile = new File("./data/TestAppAsyncSequence" + FileHandler.FILE_EXT);
+        try {
+            app.addEncoder(new CipherSequence("TestAppSyncSequence"));
+            app.addEncoder(new CipherSequence("TestAppAsyncSequence"));
+            app.saveEncoder("TestAppSyncSequence");
+            app.saveEncoderAsync("TestAppAsyncSequence").get();
+            assertTrue(syncFile.exists());
+            assertTrue(asyncFile.exists());
+        } finally {
+            syncFile.delete();
+            asyncFile.delete();
+        }
+    }
+
+    @Test
+    void journalRecoveryTest() throws Exception {
+        Path folder = Files.createTempDirectory("xypher-app-journal");
+        File file = new File("./data/TestJournalFile" + FileHandler.FILE_EXT);
+        try {
+            CipherSequence inside = new CipherSequence("TestJournalOther");
+            Files.write(file.toPath(), FileHandler.getInstance().toJson(inside).getBytes(StandardCharsets.UTF_8));
+            app.attachJournal(new MutationJournal(folder.toString(), FileHandler.getInstance(), 100));
+            app.addEncoder(new AtbashCipher());
+            app.loadEncoder("TestJournalFile");
+            app.pushCipher("TestJournalFile", "AtbashCipher");
+            app.close();
+
+            MutationJournal journal = new MutationJournal(folder.toString(), FileHandler.getInstance(), 100);
+            Map<String, Encoder> recovered = journal.recover();
+            journal.close();
+            assertEquals(1, ((CipherSequence) recovered.get("TestJournalFile")).getSize());
+            assertFalse(recovered.containsKey("TestJournalOther"));
+        } finally {
+            file.delete();
+            Files.deleteIfExists(folder.resolve(MutationJournal.JOURNAL_FILE));
+            Files.deleteIfExists(folder.resolve(MutationJournal.SNAPSHOT_FILE));
+            Files.delete(folder);
+        }
+    }
+
+    @Test
+    void mergeEncodersTest() {
+        CipherSequence sequence = new CipherSequence("TestMergeSequence");
+        sequence.pushCipher(new CaesarCipher(4));
+        CaesarCipher cipher = new CaesarCipher(8);
+        app.addEncoder(sequence);
+        app.addEncoder(cipher);
+        CipherSequence edited = new CipherSequence("TestMergeSequence");
+        edited.pushCipher(new CaesarCipher(4));
+        edited.pushCipher(new AtbashCipher());
+        Map<String, Encoder> loaded = new LinkedHashMap<>();
+        loaded.put(edited.toString(), edited);
+        loaded.put(cipher.toString(), new CaesarCipher(8));
+
+        List<String> changed = new ArrayList<>();
+        app.getEncoders().addListener((MapChangeListener<String, Encoder>) change -> changed.add(change.getKey()));
+
+        app.mergeEncoders(loaded);
+        assertEquals(Collections.singletonList("TestMergeSequence"), changed);
+        assertSame(edited, app.getEncoders().get("TestMergeSequence"));
+        assertSame(cipher, app.getEncoders().get(cipher.toString()));
+    }
+
+    @Test
+    void deleteResetsMetricsTest() {
+        app.addEncoder(new CipherSequence("TestDeletedSequence"));
+        app.encode("TestDeletedSequence", "abc");
+        assertEquals(1, MetricsRegistry.getInstance().forEncoder("TestDeletedSequence", true).getCalls());
+
+        app.deleteEncoder("TestDeletedSequence");
+        app.addEncoder(new CipherSequence("TestDeletedSequence"));
+        assertEquals(0, MetricsRegistry.getInstance().forEncoder("TestDeletedSequence", true).getCalls());
+        app.deleteEncoder("TestDeletedSequence");
+    }
+
+    @Test
+    void measureTest() {
+        CaesarCipher cipher = new CaesarCipher(9);
+        app.addEncoder(cipher);
+        EncoderMetrics metrics = MetricsRegistry.getInstance().forEncoder(cipher.toString(), true);
+        long calls = metrics.getCalls();
+        long chars = metrics.getChars();
+
+        String output = app.measure(cipher.toString(), true, 6,
+                encoder -> encoder.encode("abc") + encoder.encode("def"));
+        assertEquals(cipher.encode("abcdef"), output);
+        assertEquals(calls + 1, metrics.getCalls());
+        assertEquals(chars + 6, metrics.getChars());
+    }
+}